@@ -1,16 +1,18 @@
 package br.com.josehamilton.crud.api;
 
-import org.modelmapper.ModelMapper;
+import br.com.josehamilton.crud.api.mapper.UserMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CrudUserSpringBootApplication {
 
 	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
+	public UserMapper userMapper() {
+		return new UserMapper();
 	}
 
 	public static void main(String[] args) {
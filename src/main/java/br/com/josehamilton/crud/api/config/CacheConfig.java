@@ -0,0 +1,42 @@
+package br.com.josehamilton.crud.api.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Arrays;
+
+// O cache é aplicado por fora da transação (os dois advisors teriam a mesma ordem, sem garantia de qual vem primeiro):
+// acertos não abrem transação e o @CachePut/@CacheEvict só acontece depois do commit, uma escrita desfeita no commit
+// não deixa no cache um valor que não existe no banco
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@Configuration
+public class CacheConfig {
+
+    public static final String USERS = "users";
+
+    public static final String USER_COUNTS = "userCounts";
+
+    public static final String USER_KEYS = "userKeys";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${user.cache.users.spec}") String usersSpec,
+                                     @Value("${user.cache.user-counts.spec}") String userCountsSpec,
+                                     @Value("${user.cache.user-keys.spec}") String userKeysSpec) {
+        // Cada cache possui o seu limite e expiração
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(Arrays.asList(
+                new CaffeineCache(USERS, Caffeine.from(usersSpec).build()),
+                new CaffeineCache(USER_COUNTS, Caffeine.from(userCountsSpec).build()),
+                new CaffeineCache(USER_KEYS, Caffeine.from(userKeysSpec).build())
+        ));
+        return cacheManager;
+    }
+
+}
@@ -0,0 +1,44 @@
+package br.com.josehamilton.crud.api.config;
+
+import br.com.josehamilton.crud.api.limiter.GradientLimit;
+import br.com.josehamilton.crud.api.limiter.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+// Limite adaptativo de requisições simultâneas, com orçamentos separados para leituras e escritas
+@Configuration
+@ConditionalOnProperty(prefix = "user.api.concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    private static final String PREFIX = "user.api.concurrency-limit.";
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(Environment environment, MeterRegistry registry) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+                limit(environment, "read"),
+                limit(environment, "write"),
+                environment.getRequiredProperty(PREFIX + "retry-after-seconds", Long.class),
+                registry );
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        // Logo após o log de acesso, para que as requisições recusadas também sejam registradas
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    private static GradientLimit limit(Environment environment, String budget) {
+        String prefix = PREFIX + budget + ".";
+        return new GradientLimit(
+                environment.getRequiredProperty(prefix + "initial-limit", Integer.class),
+                environment.getRequiredProperty(prefix + "min-limit", Integer.class),
+                environment.getRequiredProperty(prefix + "max-limit", Integer.class),
+                environment.getRequiredProperty(prefix + "tolerance", Double.class),
+                environment.getRequiredProperty(PREFIX + "backoff-ratio", Double.class) );
+    }
+
+}
@@ -0,0 +1,98 @@
+package br.com.josehamilton.crud.api.config;
+
+import br.com.josehamilton.crud.api.datasource.ClientIdFilter;
+import br.com.josehamilton.crud.api.datasource.ReadWriteRoutingDataSource;
+import br.com.josehamilton.crud.api.datasource.ReadYourWritesContext;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+// Banco principal para escritas e réplica para as transações somente leitura (user.datasource.routing.enabled=true)
+@Configuration
+@ConditionalOnProperty(prefix = "user.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    private HikariDataSource primary;
+
+    private HikariDataSource replica;
+
+    // Com open-in-view a conexão obtida pela primeira leitura (réplica) fica presa até o fim da requisição,
+    // e uma escrita feita em seguida na mesma requisição usaria essa mesma conexão
+    public DataSourceRoutingConfig(@Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if ( openInView ) {
+            throw new IllegalStateException("O roteamento entre principal e réplica exige spring.jpa.open-in-view=false.");
+        }
+    }
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("user.datasource.primary")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("user.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    public ReadYourWritesContext readYourWritesContext(@Value("${user.datasource.routing.sticky-window-ms}") long stickyWindowMillis) {
+        return new ReadYourWritesContext(stickyWindowMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSourceProperties") DataSourceProperties primaryProperties,
+                                 @Qualifier("replicaDataSourceProperties") DataSourceProperties replicaProperties,
+                                 ReadYourWritesContext context, Environment environment) {
+        // Os pools não são beans: um segundo DataSource no contexto faria o inicializador do Spring Boot
+        // procurar o DataSource principal enquanto ele ainda está sendo criado
+        Binder binder = Binder.get(environment);
+        this.primary = createPool(primaryProperties, binder, "user.datasource.primary.hikari");
+        this.replica = createPool(replicaProperties, binder, "user.datasource.replica.hikari");
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(this.primary, this.replica, context);
+        routing.afterPropertiesSet();
+        // A conexão é obtida só no primeiro comando, quando o readOnly da transação já é conhecido
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @PreDestroy
+    public void close() {
+        if ( this.primary != null ) {
+            this.primary.close();
+        }
+        if ( this.replica != null ) {
+            this.replica.close();
+        }
+    }
+
+    @Bean
+    public FilterRegistrationBean<ClientIdFilter> clientIdFilter() {
+        FilterRegistrationBean<ClientIdFilter> registration = new FilterRegistrationBean<>( new ClientIdFilter() );
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    private static HikariDataSource createPool(DataSourceProperties properties, Binder binder, String hikariPrefix) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind( hikariPrefix, Bindable.ofInstance(pool) );
+        return pool;
+    }
+
+}
@@ -0,0 +1,23 @@
+package br.com.josehamilton.crud.api.config;
+
+import br.com.josehamilton.crud.api.logging.AccessLogFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Log de acesso estruturado e amostrado, no lugar do log.info de entrada em cada rota
+@Configuration
+public class LoggingConfig {
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(@Value("${user.logging.access.sample-rate}") double sampleRate) {
+        FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>( new AccessLogFilter(sampleRate) );
+        registration.addUrlPatterns("/api/*");
+        // Primeiro da cadeia, para que a latência inclua os demais filtros
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+}
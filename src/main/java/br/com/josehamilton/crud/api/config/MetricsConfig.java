@@ -0,0 +1,34 @@
+package br.com.josehamilton.crud.api.config;
+
+import br.com.josehamilton.crud.api.metrics.QueryCountFilter;
+import br.com.josehamilton.crud.api.metrics.QueryCounter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Timers dos métodos anotados com @Timed e contagem de consultas ao banco por requisição
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return properties -> properties.put( AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter() );
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(MeterRegistry registry) {
+        FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>( new QueryCountFilter(registry) );
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+}
@@ -2,23 +2,56 @@ package br.com.josehamilton.crud.api.controllers;
 
 import br.com.josehamilton.crud.api.dtos.UserDTO;
 import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.exception.BusinessException;
+import br.com.josehamilton.crud.api.exception.ServiceUnavailableException;
+import br.com.josehamilton.crud.api.mapper.UserMapper;
+import br.com.josehamilton.crud.api.repository.UserCursor;
+import br.com.josehamilton.crud.api.responses.CursorPage;
+import br.com.josehamilton.crud.api.responses.MultiGetResponse;
+import br.com.josehamilton.crud.api.responses.PageResponse;
 import br.com.josehamilton.crud.api.responses.Response;
 import br.com.josehamilton.crud.api.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,8 +60,28 @@ import java.util.stream.Collectors;
 @Api("API User")
 public class UserController {
 
+    private static final int BATCH_SIZE = 500;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    private static final int MAX_IDS_PER_REQUEST = 10_000;
+
+    // Ids na query string precisam caber na linha de requisição do Tomcat (8 KB), mesmo com 19 dígitos cada;
+    // listas maiores vão no corpo de POST /api/users/by-ids e POST /api/users/delete
+    private static final int MAX_IDS_IN_QUERY = 300;
+
+    private static final String OUTDATED_VERSION = "O usuário foi alterado por outra requisição.";
+
+    private static final List<String> PATCHABLE_FIELDS = Arrays.asList("fullname", "cpf", "email");
+
     @Autowired
-    private ModelMapper modelMapper;
+    private UserMapper userMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
 
     @Autowired
     private UserService userService;
@@ -37,7 +90,7 @@ public class UserController {
     @ApiOperation("Save a new user.")
     public ResponseEntity<Response<UserDTO>> create(@RequestBody @Valid UserDTO dto, BindingResult result) {
         // Log informado o que o método executa
-        log.info("Na rota utilizada será feito um método POST para inserir um novo usuário.");
+        log.debug("Na rota utilizada será feito um método POST para inserir um novo usuário.");
         // Variável instanciada de resposta
         Response<UserDTO> response = new Response<>();
         // Verificando se existe erro na requisição
@@ -47,23 +100,79 @@ public class UserController {
         }
         try {
             // Cadastrando usuário na base de dados
-            User user = this.modelMapper.map(dto, User.class);
+            User user = this.userMapper.toEntity(dto);
             user = this.userService.save(user);
-            dto = this.modelMapper.map(user, UserDTO.class);
+            dto = this.userMapper.toDto(user);
             response.setData(dto);
             // Retorno com o status 200 e os dados do usuário
             return ResponseEntity.ok(response);
+        } catch ( ServiceUnavailableException ex ) {
+            throw ex;
         } catch ( Exception ex ) {
             response.getErrors().add( ex.getMessage() );
             return ResponseEntity.badRequest().body(response);
         }
     }
 
+    @PostMapping(value = "batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Imports a list of users in batches.")
+    public ResponseEntity<Response<List<Response<UserDTO>>>> createBatch(HttpServletRequest request) throws IOException {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método POST para importar uma lista de usuários em lote.");
+        // Variável instanciada de resposta
+        Response<List<Response<UserDTO>>> response = new Response<>();
+        List<Response<UserDTO>> results = new ArrayList<>();
+        response.setData(results);
+        // Lendo o array sob demanda para não carregar a requisição inteira em memória
+        try ( JsonParser parser = this.objectMapper.getFactory().createParser( request.getInputStream() ) ) {
+            if ( parser.nextToken() != JsonToken.START_ARRAY ) {
+                response.getErrors().add("O corpo da requisição deve ser uma lista de usuários.");
+                return ResponseEntity.badRequest().body(response);
+            }
+            List<UserDTO> chunk = new ArrayList<>(BATCH_SIZE);
+            JsonToken token;
+            while ( (token = parser.nextToken()) == JsonToken.START_OBJECT ) {
+                chunk.add( this.objectMapper.readValue(parser, UserDTO.class) );
+                // Cada lote completo é gravado antes de continuar a leitura
+                if ( chunk.size() == BATCH_SIZE ) {
+                    results.addAll( this.importChunk(chunk) );
+                    chunk.clear();
+                }
+            }
+            // Um item que não é objeto ou qualquer conteúdo após a lista invalida o restante, como um erro de leitura
+            if ( token != JsonToken.END_ARRAY ) {
+                response.getErrors().add("Cada item da lista deve ser um usuário.");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if ( parser.nextToken() != null ) {
+                response.getErrors().add("O corpo da requisição deve conter apenas a lista de usuários.");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if ( !chunk.isEmpty() ) {
+                results.addAll( this.importChunk(chunk) );
+            }
+        } catch ( JsonProcessingException ex ) {
+            // Os lotes anteriores ao erro de leitura já foram gravados e continuam no retorno
+            response.getErrors().add( ex.getOriginalMessage() );
+            return ResponseEntity.badRequest().body(response);
+        }
+        // Retorno com o status 200 e o resultado de cada linha na ordem recebida
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("{id}")
     @ApiOperation("Obtains details of an user.")
-    public ResponseEntity<Response<UserDTO>> getUser(@PathVariable("id") Long id) {
+    public ResponseEntity<Response<UserDTO>> getUser(@PathVariable("id") Long id, HttpServletRequest request) {
         // Log informado o que o método executa
-        log.info("Na rota utilizada será feito um método GET passando o ID como parâmetro para pesquisar um usuário.");
+        log.debug("Na rota utilizada será feito um método GET passando o ID como parâmetro para pesquisar um usuário.");
+        // Com If-None-Match apenas a versão é consultada; sem alteração retorna 304 sem carregar o usuário
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if ( ifNoneMatch != null ) {
+            Long version = this.userService.getUserVersion( id ).orElse(null);
+            if ( version != null && eTagMatches( ifNoneMatch, userETag(id, version) ) ) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag( userETag(id, version) ).build();
+            }
+        }
         // Variável instanciada de resposta
         Response<UserDTO> response = new Response<>();
         // Pesquisa do usuário pelo id
@@ -73,35 +182,80 @@ public class UserController {
             return ResponseEntity.notFound().build();
         }
         // Caso encontre o usuário o valor será mapeado para um usuário dto para retorno
-        UserDTO dto = this.modelMapper.map(user, UserDTO.class);
+        UserDTO dto = this.userMapper.toDto(user);
         response.setData(dto);
-        return ResponseEntity.ok().body(response);
+        return ResponseEntity.ok().eTag( userETag(user.getId(), user.getVersion()) ).body(response);
+    }
+
+    @GetMapping("by-cpf/{cpf}")
+    @ApiOperation("Obtains details of an user by cpf.")
+    public ResponseEntity<Response<UserDTO>> getUserByCpf(@PathVariable("cpf") String cpf) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método GET passando o CPF como parâmetro para pesquisar um usuário.");
+        return this.toUserResponse( this.userService.getUserByCpf( cpf ).orElse(null) );
+    }
+
+    // O padrão ".+" evita que o domínio do email seja tratado como extensão do caminho
+    @GetMapping("by-email/{email:.+}")
+    @ApiOperation("Obtains details of an user by email.")
+    public ResponseEntity<Response<UserDTO>> getUserByEmail(@PathVariable("email") String email) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método GET passando o email como parâmetro para pesquisar um usuário.");
+        return this.toUserResponse( this.userService.getUserByEmail( email ).orElse(null) );
+    }
+
+    @GetMapping(params = { "ids", "!cursor" })
+    @ApiOperation("Obtains many users by a list of ids.")
+    public ResponseEntity<Response<MultiGetResponse<UserDTO>>> getUsersByIds(@RequestParam("ids") List<Long> ids) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método GET passando uma lista de IDs como parâmetro para pesquisar usuários.");
+        return this.findUsersByIds( ids, MAX_IDS_IN_QUERY );
+    }
+
+    @PostMapping(value = "by-ids", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Obtains many users by a list of ids sent in the request body.")
+    public ResponseEntity<Response<MultiGetResponse<UserDTO>>> getUsersByIdsInBody(@RequestBody List<Long> ids) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método POST passando uma lista de IDs no corpo para pesquisar usuários.");
+        return this.findUsersByIds( ids, MAX_IDS_PER_REQUEST );
     }
 
     @DeleteMapping("{id}")
     @ApiOperation("Deletes an user by id.")
     public ResponseEntity<Response<UserDTO>> delete(@PathVariable("id") Long id) {
         // Log informado o que o método executa
-        log.info("Na rota utilizada será feito um método DELETE passando o ID como parâmetro para excluir um usuário.");
+        log.debug("Na rota utilizada será feito um método DELETE passando o ID como parâmetro para excluir um usuário.");
         // Variável instanciada de resposta
         Response<UserDTO> response = new Response<>();
-        // Pesquisa do usuário pelo id
-        User user = this.userService.getUserById( id ).orElse(null);
-        // Caso não encontre o usuário entrará no if retornando erro de not found
-        if ( user == null ) {
+        // Removendo o usuário pelo id, caso nenhum registro seja removido retorna erro de not found
+        if ( !this.userService.deleteById( id ) ) {
             return ResponseEntity.notFound().build();
         }
-        // Removendo o usuário
-        this.userService.delete(user);
         // Retornando status de aceito
         return ResponseEntity.accepted().build();
     }
 
+    @DeleteMapping(params = "ids")
+    @ApiOperation("Deletes users by a list of ids.")
+    public ResponseEntity<Response<Integer>> deleteAll(@RequestParam("ids") List<Long> ids) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método DELETE passando uma lista de IDs como parâmetro para excluir usuários.");
+        return this.deleteUsersByIds( ids, MAX_IDS_IN_QUERY );
+    }
+
+    @PostMapping(value = "delete", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Deletes users by a list of ids sent in the request body.")
+    public ResponseEntity<Response<Integer>> deleteAllInBody(@RequestBody List<Long> ids) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método POST passando uma lista de IDs no corpo para excluir usuários.");
+        return this.deleteUsersByIds( ids, MAX_IDS_PER_REQUEST );
+    }
+
     @PutMapping("{id}")
     @ApiOperation("Updates an user by id.")
     public ResponseEntity<Response<UserDTO>> update(@PathVariable("id") Long id, @RequestBody UserDTO dto) {
         // Log informado o que o método executa
-        log.info("Na rota utilizada será feito um método PUT passando o ID e o Usuário como parâmetro para alterar um usuário.");
+        log.debug("Na rota utilizada será feito um método PUT passando o ID e o Usuário como parâmetro para alterar um usuário.");
         // Variável instanciada de resposta
         Response<UserDTO> response = new Response<>();
         // Pesquisa do usuário pelo id
@@ -109,41 +263,284 @@ public class UserController {
         // Caso não encontre o usuário entrará no if retornando erro de not found
         if (foundUser == null) return ResponseEntity.notFound().build();
         try {
-            // Trocando informações de atributos para atualizar usuário
-            foundUser.setFullname(dto.getFullname());
-            foundUser.setEmail(dto.getEmail());
-            foundUser.setCpf(dto.getCpf());
-            foundUser = this.userService.update(foundUser);
-            UserDTO updatedUser = this.modelMapper.map(foundUser, UserDTO.class);
+            // Montando um novo objeto com os atributos alterados, a instância encontrada pode estar em cache.
+            // Sem versão informada o serviço usa a versão atual do banco
+            User user = User.builder()
+                    .id(foundUser.getId())
+                    .fullname(dto.getFullname())
+                    .email(dto.getEmail())
+                    .cpf(dto.getCpf())
+                    .version(dto.getVersion())
+                    .build();
+            foundUser = this.userService.update(user);
+            UserDTO updatedUser = this.userMapper.toDto(foundUser);
             response.setData(updatedUser);
             // Retornando usuário alterado com status ok
             return ResponseEntity.ok().body(response);
+        } catch ( ServiceUnavailableException ex ) {
+            throw ex;
+        } catch ( OptimisticLockingFailureException ex ) {
+            // Versão informada desatualizada: conflito, como no PATCH
+            response.getErrors().add(OUTDATED_VERSION);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch ( Exception ex ) {
             response.getErrors().add( ex.getMessage() );
             return ResponseEntity.badRequest().body(response);
         }
     }
 
+    @PatchMapping("{id}")
+    @ApiOperation("Partially updates an user by id.")
+    public ResponseEntity<Response<UserDTO>> patch(@PathVariable("id") Long id, @RequestBody UserDTO dto) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método PATCH passando o ID e os campos alterados como parâmetro para alterar um usuário.");
+        // Variável instanciada de resposta
+        Response<UserDTO> response = new Response<>();
+        // Validando apenas os campos enviados na requisição
+        User changes = this.userMapper.toEntity(dto);
+        if ( changes.getFullname() == null && changes.getEmail() == null && changes.getCpf() == null ) {
+            response.getErrors().add("Nenhum campo informado para alteração.");
+        }
+        PATCHABLE_FIELDS.forEach( field -> this.validator.validateProperty(dto, field).stream()
+                .filter( violation -> violation.getInvalidValue() != null )
+                .forEach( violation -> response.getErrors().add( violation.getMessage() ) ) );
+        if ( !response.getErrors().isEmpty() ) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            // Caso não encontre o usuário retornará erro de not found
+            if ( !this.userService.patch(id, changes) ) {
+                return ResponseEntity.notFound().build();
+            }
+            // Retornando sem conteúdo, a alteração não precisa recarregar o usuário
+            return ResponseEntity.noContent().build();
+        } catch ( OptimisticLockingFailureException ex ) {
+            response.getErrors().add(OUTDATED_VERSION);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch ( BusinessException ex ) {
+            response.getErrors().add( ex.getMessage() );
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping
     @ApiOperation("Find users by parameters.")
-    public ResponseEntity<Response<Page<UserDTO>>> getUsersByParam(UserDTO dto, Pageable pageRequest) {
+    public ResponseEntity<Response<PageResponse<UserDTO>>> getUsersByParam(UserDTO dto, Pageable pageRequest,
+                                                                           @RequestParam(value = "count", defaultValue = "true") boolean count,
+                                                                           HttpServletRequest request) {
         // Log informado o que o método executa
-        log.info("Na rota utilizada será feito um método GET passando os parâmetros de pesquisa para filtrar usuários.");
-        // Variável instanciada de resposta
-        Response<Page<UserDTO>> response = new Response<>();
+        log.debug("Na rota utilizada será feito um método GET passando os parâmetros de pesquisa para filtrar usuários.");
         // Mapeando dados recebidos para a classe User
-        User filter = this.modelMapper.map( dto, User.class );
-        // Recebendo Page da pesquisa feita no BD
-        Page<User> result = this.userService.find( filter, pageRequest );
-        // Mapeando lista de dados User para UserDTO
-        List<UserDTO> list = result
-                .getContent()
-                .stream()
-                .map( entity -> this.modelMapper.map(entity, UserDTO.class) )
-                .collect(Collectors.toList());
-        // Retornando para usuário a lista paginada
-        response.setData(new PageImpl<UserDTO>( list, pageRequest, result.getTotalElements() ));
-        return ResponseEntity.ok().body(response);
+        User filter = this.userMapper.toEntity( dto );
+        // Sem o total (count=false) a pesquisa não executa a consulta de count
+        Slice<UserSummary> result = count ? this.userService.find( filter, pageRequest ) : this.userService.findSlice( filter, pageRequest );
+        // O ETag vem do conteúdo da página: sem alteração desde o ETag do cliente retorna 304 sem mapear nem serializar
+        String eTag = pageETag( result, request.getQueryString() );
+        if ( eTagMatches( request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag ) ) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        // Variável instanciada de resposta
+        Response<PageResponse<UserDTO>> response = new Response<>();
+        // Retornando para usuário a lista paginada no formato compacto (com o total quando a pesquisa o contou)
+        response.setData( PageResponse.of( result.map(this.userMapper::toDto) ) );
+        return ResponseEntity.ok().eTag(eTag).body(response);
+    }
+
+    @GetMapping("export")
+    @ApiOperation("Exports the users found by parameters as NDJSON or CSV.")
+    public void export(UserDTO dto, @RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método GET passando os parâmetros de pesquisa para exportar os usuários.");
+        boolean csv = "csv".equalsIgnoreCase(format);
+        response.setContentType( csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8" );
+        response.setHeader( HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + (csv ? "csv" : "ndjson") );
+        // Cada usuário é escrito na saída assim que é lido do banco, sem montar a lista em memória
+        Writer writer = new BufferedWriter( new OutputStreamWriter( response.getOutputStream(), StandardCharsets.UTF_8 ) );
+        JsonGenerator generator = this.objectMapper.getFactory().createGenerator(writer);
+        // Sem o separador padrão (espaço) entre valores raiz, cada linha começa direto no objeto
+        generator.setRootValueSeparator(null);
+        ObjectWriter rowWriter = this.objectMapper.writerFor(UserDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        if ( csv ) {
+            writer.write("id,fullname,cpf,email\n");
+        }
+        this.userService.export( this.userMapper.toEntity(dto), user -> {
+            try {
+                if ( csv ) {
+                    writer.write( String.join(",", String.valueOf( user.getId() ), csvField( user.getFullname() ),
+                            csvField( user.getCpf() ), csvField( user.getEmail() )) );
+                    writer.write('\n');
+                } else {
+                    rowWriter.writeValue( generator, this.userMapper.toDto(user) );
+                    generator.writeRaw('\n');
+                }
+            } catch ( IOException ex ) {
+                throw new UncheckedIOException(ex);
+            }
+        } );
+        generator.flush();
+        writer.flush();
+    }
+
+    // Pesquisa por ids e paginação por cursor não se combinam; sem este mapeamento a requisição seria ambígua
+    @GetMapping(params = { "ids", "cursor" })
+    @ApiOperation("Rejects a request that mixes a list of ids with cursor based pagination.")
+    public ResponseEntity<Response<Void>> getUsersByIdsAndCursor() {
+        Response<Void> response = new Response<>();
+        response.getErrors().add("Informe a lista de ids ou o cursor, não os dois.");
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping(params = { "cursor", "!ids" })
+    @ApiOperation("Find users by parameters using cursor based pagination.")
+    public ResponseEntity<Response<CursorPage<UserDTO>>> getUsersByCursor(UserDTO dto,
+                                                                          @RequestParam("cursor") String cursor,
+                                                                          @RequestParam(value = "size", defaultValue = "20") int size,
+                                                                          @RequestParam(value = "sort", defaultValue = "id") String sort) {
+        // Log informado o que o método executa
+        log.debug("Na rota utilizada será feito um método GET passando os parâmetros de pesquisa e o cursor para percorrer os usuários.");
+        // Variável instanciada de resposta
+        Response<CursorPage<UserDTO>> response = new Response<>();
+        try {
+            // Cursor vazio inicia a pesquisa pela primeira página na ordenação informada
+            UserCursor position = cursor.isEmpty() ? UserCursor.start(sort) : UserCursor.decode(cursor);
+            int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+            CursorPage<UserSummary> result = this.userService.findByCursor( this.userMapper.toEntity(dto), position, pageSize );
+            // Mapeando lista de dados User para UserDTO
+            List<UserDTO> list = result
+                    .getContent()
+                    .stream()
+                    .map( this.userMapper::toDto )
+                    .collect(Collectors.toList());
+            response.setData( new CursorPage<>( list, result.getSize(), result.getNextCursor() ) );
+            return ResponseEntity.ok().body(response);
+        } catch ( BusinessException ex ) {
+            response.getErrors().add( ex.getMessage() );
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    private ResponseEntity<Response<UserDTO>> toUserResponse(User user) {
+        // Caso não encontre o usuário retorna erro de not found
+        if ( user == null ) {
+            return ResponseEntity.notFound().build();
+        }
+        Response<UserDTO> response = new Response<>();
+        response.setData( this.userMapper.toDto(user) );
+        return ResponseEntity.ok().eTag( userETag(user.getId(), user.getVersion()) ).body(response);
+    }
+
+    private ResponseEntity<Response<MultiGetResponse<UserDTO>>> findUsersByIds(List<Long> ids, int maxIds) {
+        // Variável instanciada de resposta
+        Response<MultiGetResponse<UserDTO>> response = new Response<>();
+        if ( ids.isEmpty() || ids.size() > maxIds || ids.contains(null) ) {
+            response.getErrors().add("Informe de 1 a " + maxIds + " ids por requisição.");
+            return ResponseEntity.badRequest().body(response);
+        }
+        // Pesquisa de todos os ids de uma vez, devolvidos na ordem informada
+        Map<Long, User> found = this.userService.getUsersByIds( ids );
+        List<UserDTO> content = new ArrayList<>( found.size() );
+        List<Long> missing = new ArrayList<>();
+        for ( Long id : new LinkedHashSet<>(ids) ) {
+            User user = found.get(id);
+            if ( user != null ) {
+                content.add( this.userMapper.toDto(user) );
+            } else {
+                missing.add(id);
+            }
+        }
+        response.setData( new MultiGetResponse<>( content, missing ) );
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Response<Integer>> deleteUsersByIds(List<Long> ids, int maxIds) {
+        // Variável instanciada de resposta
+        Response<Integer> response = new Response<>();
+        if ( ids.isEmpty() || ids.size() > maxIds || ids.contains(null) ) {
+            response.getErrors().add("Informe de 1 a " + maxIds + " ids por requisição.");
+            return ResponseEntity.badRequest().body(response);
+        }
+        // Retornando a quantidade de usuários removidos
+        response.setData( this.userService.deleteAllById(ids) );
+        return ResponseEntity.ok(response);
+    }
+
+    private static String userETag(Long id, Long version) {
+        // ETag forte formado pelo id e pela versão do registro
+        return "\"" + id + "-" + (version != null ? version : 0L) + "\"";
+    }
+
+    private static String pageETag(Slice<UserSummary> result, String queryString) {
+        // ETag da página formado pelos parâmetros da pesquisa, pelo id e versão de cada usuário e pelo total
+        // (ou pela existência da próxima página): qualquer escrita que mude a página muda um desses valores
+        StringBuilder key = new StringBuilder( queryString != null ? queryString : "" );
+        for ( UserSummary user : result ) {
+            key.append('|').append( user.getId() ).append('-').append( user.getVersion() != null ? user.getVersion() : 0L );
+        }
+        key.append('|').append( result instanceof Page ? ((Page<UserSummary>) result).getTotalElements() : result.hasNext() );
+        return "\"p-" + DigestUtils.md5DigestAsHex( key.toString().getBytes(StandardCharsets.UTF_8) ) + "\"";
+    }
+
+    private static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        // If-None-Match pode trazer uma lista de ETags, fracos (W/) ou "*"
+        if ( ifNoneMatch == null ) {
+            return false;
+        }
+        for ( String candidate : ifNoneMatch.split(",") ) {
+            candidate = candidate.trim();
+            if ( candidate.startsWith("W/") ) {
+                candidate = candidate.substring(2);
+            }
+            if ( candidate.equals("*") || candidate.equals(eTag) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String csvField(String value) {
+        // Campos com separador, aspas ou quebra de linha são escritos entre aspas
+        if ( value == null ) {
+            return "";
+        }
+        if ( value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0 ) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private List<Response<UserDTO>> importChunk(List<UserDTO> chunk) {
+        List<Response<UserDTO>> results = new ArrayList<>(chunk.size());
+        List<User> users = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        // Validando cada linha, apenas as válidas seguem para a base de dados
+        for ( UserDTO dto : chunk ) {
+            Set<ConstraintViolation<UserDTO>> violations = this.validator.validate(dto);
+            if ( violations.isEmpty() ) {
+                positions.add( results.size() );
+                users.add( this.userMapper.toEntity(dto) );
+                results.add( null );
+            } else {
+                Response<UserDTO> row = new Response<>();
+                violations.forEach( violation -> row.getErrors().add( violation.getMessage() ) );
+                results.add( row );
+            }
+        }
+        if ( users.isEmpty() ) {
+            return results;
+        }
+        // Gravando o lote e devolvendo cada resultado para a sua posição original
+        List<Response<User>> saved = this.userService.saveAll(users);
+        for ( int i = 0; i < saved.size(); i++ ) {
+            Response<User> outcome = saved.get(i);
+            Response<UserDTO> row = new Response<>();
+            row.setErrors( outcome.getErrors() );
+            if ( outcome.getData() != null ) {
+                row.setData( this.userMapper.toDto(outcome.getData()) );
+            }
+            results.set( positions.get(i), row );
+        }
+        return results;
     }
 
 }
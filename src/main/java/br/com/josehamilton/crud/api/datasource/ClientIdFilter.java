@@ -0,0 +1,31 @@
+package br.com.josehamilton.crud.api.datasource;
+
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Identifica o cliente da requisição pelo cabeçalho {@code X-Client-Id} ou, na falta dele, pelo endereço de origem.
+ */
+public class ClientIdFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = request.getHeader(CLIENT_ID_HEADER);
+        ReadYourWritesContext.setClient( StringUtils.hasText(client) ? client : request.getRemoteAddr() );
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWritesContext.clear();
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package br.com.josehamilton.crud.api.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Envia as transações somente leitura para a réplica e o restante para o banco principal.
+ * Deve ficar atrás de um {@code LazyConnectionDataSourceProxy}: a conexão só é obtida depois que a
+ * transação já foi marcada como somente leitura.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final ReadYourWritesContext context;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesContext context) {
+        this.context = context;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if ( TransactionSynchronizationManager.isCurrentTransactionReadOnly() ) {
+            // Cliente que escreveu há pouco continua lendo do principal
+            return this.context.wroteRecently() ? Route.PRIMARY : Route.REPLICA;
+        }
+        if ( TransactionSynchronizationManager.isActualTransactionActive() ) {
+            this.context.markWriteAfterCommit();
+        }
+        return Route.PRIMARY;
+    }
+
+}
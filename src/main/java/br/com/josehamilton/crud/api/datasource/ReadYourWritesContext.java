@@ -0,0 +1,77 @@
+package br.com.josehamilton.crud.api.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guarda o cliente da requisição corrente e os clientes que escreveram há pouco tempo.
+ * Enquanto a janela não expira as leituras desse cliente vão para o banco principal,
+ * para que ele sempre leia o que acabou de gravar mesmo com atraso na réplica.
+ */
+public class ReadYourWritesContext {
+
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesContext(long stickyWindowMillis) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindowMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public static void setClient(String client) {
+        CLIENT.set(client);
+    }
+
+    public static void clear() {
+        CLIENT.remove();
+    }
+
+    /**
+     * Mantém o cliente da requisição quando a tarefa roda em outra thread (pool do modo "bounded").
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        String client = CLIENT.get();
+        if ( client == null ) {
+            return task;
+        }
+        return () -> {
+            CLIENT.set(client);
+            try {
+                return task.call();
+            } finally {
+                CLIENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Marca o cliente como escritor recente quando a transação corrente for confirmada;
+     * transações desfeitas não prendem o cliente ao banco principal.
+     */
+    void markWriteAfterCommit() {
+        String client = CLIENT.get();
+        if ( client == null || !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        });
+    }
+
+    boolean wroteRecently() {
+        String client = CLIENT.get();
+        return client != null && this.recentWriters.getIfPresent(client) != null;
+    }
+
+}
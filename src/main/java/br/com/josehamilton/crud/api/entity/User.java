@@ -1,5 +1,6 @@
 package br.com.josehamilton.crud.api.entity;
 
+import br.com.josehamilton.crud.api.utils.TextNormalizer;
 import lombok.*;
 
 import javax.persistence.*;
@@ -9,21 +10,56 @@ import javax.persistence.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "user")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.UK_EMAIL, columnNames = "email"),
+        @UniqueConstraint(name = User.UK_CPF, columnNames = "cpf"),
+        @UniqueConstraint(name = User.UK_EMAIL_NORMALIZED, columnNames = "email_normalized")
+}, indexes = {
+        @Index(name = "idx_user_fullname_normalized", columnList = "fullname_normalized"),
+        @Index(name = "idx_user_fullname_id", columnList = "fullname, id")
+})
 public class User {
 
+    public static final String UK_EMAIL = "uk_user_email";
+
+    public static final String UK_CPF = "uk_user_cpf";
+
+    // O email é único sem diferenciar maiúsculas e minúsculas
+    public static final String UK_EMAIL_NORMALIZED = "uk_user_email_normalized";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     @Column
     private Long id;
 
     @Column(nullable = false, length = 120)
     private String fullname;
 
-    @Column(nullable = false, unique = true, length = 11)
+    @Column(nullable = false, length = 11)
     private String cpf;
 
-    @Column(nullable = false, unique = true, length = 120)
+    @Column(nullable = false, length = 120)
     private String email;
 
+    // Versão usada no controle de concorrência otimista das alterações
+    @Version
+    @Column
+    private Long version;
+
+    // Colunas normalizadas usadas nas pesquisas indexadas, preenchidas automaticamente
+    @Column(name = "fullname_normalized", length = 120)
+    private String fullnameNormalized;
+
+    @Column(name = "email_normalized", length = 120)
+    private String emailNormalized;
+
+    @PrePersist
+    @PreUpdate
+    public void normalize() {
+        this.cpf = TextNormalizer.normalizeCpf(this.cpf);
+        this.fullnameNormalized = TextNormalizer.normalize(this.fullname);
+        this.emailNormalized = TextNormalizer.normalizeEmail(this.email);
+    }
+
 }
@@ -0,0 +1,27 @@
+package br.com.josehamilton.crud.api.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Projeção de {@link User} com apenas as colunas retornadas pela API, usada nas pesquisas e na exportação.
+ * Não é uma entidade: as instâncias não entram no contexto de persistência e não possuem as colunas normalizadas.
+ */
+@Value
+@Builder
+// Construtor público usado pela consulta (new UserSummary(...)) na ordem das colunas selecionadas
+@AllArgsConstructor
+public class UserSummary {
+
+    private final Long id;
+
+    private final String fullname;
+
+    private final String cpf;
+
+    private final String email;
+
+    private final Long version;
+
+}
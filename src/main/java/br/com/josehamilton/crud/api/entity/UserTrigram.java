@@ -0,0 +1,30 @@
+package br.com.josehamilton.crud.api.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "user_trigram", indexes = {
+        @Index(name = "idx_user_trigram_trigram", columnList = "trigram, user_id"),
+        @Index(name = "idx_user_trigram_user", columnList = "user_id")
+})
+public class UserTrigram {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_trigram_seq")
+    @SequenceGenerator(name = "user_trigram_seq", sequenceName = "user_trigram_seq", allocationSize = 100)
+    @Column
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 3)
+    private String trigram;
+
+}
@@ -0,0 +1,13 @@
+package br.com.josehamilton.crud.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 4012893577614620731L;
+
+    public ServiceUnavailableException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.josehamilton.crud.api.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Limita as requisições simultâneas da API com orçamentos separados para leituras (GET e HEAD) e escritas.
+ * Acima do limite a requisição recebe 503 com {@code Retry-After} na hora, em vez de esperar por uma thread
+ * do Tomcat ou uma conexão do pool. Respostas 503 da própria API contam como sobrecarga e reduzem o limite.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] OVERLOADED = "{\"data\":null,\"errors\":[\"Servidor sobrecarregado, tente novamente.\"]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final List<String> READ_POST_PATTERNS = Collections.singletonList("/api/users/by-ids");
+
+    private static final List<String> LONG_RUNNING_PATTERNS = Arrays.asList("/api/users/export", "/api/users/batch");
+
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final Budget read;
+
+    private final Budget write;
+
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(GradientLimit readLimit, GradientLimit writeLimit, long retryAfterSeconds, MeterRegistry registry) {
+        this.read = new Budget("read", readLimit, registry);
+        this.write = new Budget("write", writeLimit, registry);
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Budget budget = isRead(request) ? this.read : this.write;
+        if ( !budget.limit.tryAcquire() ) {
+            budget.rejected.increment();
+            response.setStatus( HttpStatus.SERVICE_UNAVAILABLE.value() );
+            response.setHeader( HttpHeaders.RETRY_AFTER, this.retryAfterSeconds );
+            response.setContentType( MediaType.APPLICATION_JSON_VALUE );
+            response.getOutputStream().write(OVERLOADED);
+            return;
+        }
+        budget.accepted.increment();
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if ( completed && response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value() ) {
+                budget.limit.onDropped();
+            } else if ( completed && !isLongRunning(request) ) {
+                budget.limit.onSuccess( System.nanoTime() - start );
+            } else {
+                // Exceções não tratadas e rotas longas por natureza não dizem nada sobre a capacidade
+                budget.limit.onIgnore();
+            }
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        // A pesquisa por uma lista de ids usa POST apenas para levar os ids no corpo
+        if ( "POST".equals( request.getMethod() ) && matches(request, READ_POST_PATTERNS) ) {
+            return true;
+        }
+        return "GET".equals( request.getMethod() ) || "HEAD".equals( request.getMethod() );
+    }
+
+    private static boolean isLongRunning(HttpServletRequest request) {
+        // Exportação e importação em lote duram proporcionalmente ao volume, não à carga do banco
+        return matches(request, LONG_RUNNING_PATTERNS);
+    }
+
+    private static boolean matches(HttpServletRequest request, List<String> patterns) {
+        // Caminho sem o context path e sem parâmetros de matriz (;jsessionid=...), comparado com os mesmos
+        // padrões das rotas; a barra final é aceita como no mapeamento do Spring MVC
+        String path = PATH_HELPER.getPathWithinApplication(request);
+        for ( String pattern : patterns ) {
+            if ( PATH_MATCHER.match(pattern, path) || PATH_MATCHER.match(pattern + "/", path) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Budget {
+
+        private final GradientLimit limit;
+
+        private final Counter accepted;
+
+        private final Counter rejected;
+
+        private Budget(String name, GradientLimit limit, MeterRegistry registry) {
+            this.limit = limit;
+            this.accepted = requests(registry, name, "accepted");
+            this.rejected = requests(registry, name, "rejected");
+            Gauge.builder("user.api.concurrency.limit", limit, GradientLimit::getLimit)
+                    .description("Limite atual de requisições simultâneas")
+                    .tag("budget", name)
+                    .register(registry);
+            Gauge.builder("user.api.concurrency.in.flight", limit, GradientLimit::getInFlight)
+                    .description("Requisições em andamento")
+                    .tag("budget", name)
+                    .register(registry);
+        }
+
+        private static Counter requests(MeterRegistry registry, String budget, String result) {
+            return Counter.builder("user.api.concurrency.requests")
+                    .description("Requisições aceitas e recusadas pelo limite de concorrência")
+                    .tag("budget", budget)
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package br.com.josehamilton.crud.api.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de requisições simultâneas ajustado pelo gradiente da latência: a latência recente (média exponencial
+ * curta) é comparada com a linha de base medida (média exponencial longa). Enquanto a recente fica até
+ * {@code tolerance} vezes a linha de base o limite cresce, com uma folga da raiz quadrada do limite; acima disso
+ * é reduzido na mesma proporção em que a latência subiu. Recusas por sobrecarga multiplicam o limite por
+ * {@code backoffRatio}.
+ */
+public final class GradientLimit {
+
+    // Janelas das médias exponenciais em número de respostas
+    private static final double SHORT_WINDOW = 10;
+
+    private static final double LONG_WINDOW = 500;
+
+    // Peso de cada novo cálculo no limite, para que uma resposta isolada não mova o limite de uma vez
+    private static final double SMOOTHING = 0.2;
+
+    // Redução máxima por resposta quando a latência dispara
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    private double shortLatency;
+
+    private double baselineLatency;
+
+    private long samples;
+
+    // Instante da última redução por sobrecarga: recusas de uma mesma rajada reduzem o limite uma única vez
+    private long lastDropNanos;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio) {
+        if ( minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit ) {
+            throw new IllegalArgumentException("Informe limites com 1 <= mínimo <= inicial <= máximo.");
+        }
+        if ( tolerance < 1 || backoffRatio <= 0 || backoffRatio >= 1 ) {
+            throw new IllegalArgumentException("Informe uma tolerância a partir de 1 e uma redução entre 0 e 1.");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.lastDropNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+    }
+
+    /**
+     * Reserva uma vaga; falso quando o limite atual já está em uso.
+     */
+    public boolean tryAcquire() {
+        while ( true ) {
+            int current = this.inFlight.get();
+            if ( current >= this.getLimit() ) {
+                return false;
+            }
+            if ( this.inFlight.compareAndSet(current, current + 1) ) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera a vaga de uma requisição concluída, usando sua latência para ajustar o limite.
+     */
+    public void onSuccess(long latencyNanos) {
+        int used = this.inFlight.getAndDecrement();
+        this.update(latencyNanos, used);
+    }
+
+    /**
+     * Libera a vaga de uma requisição que falhou por sobrecarga.
+     */
+    public void onDropped() {
+        this.inFlight.decrementAndGet();
+        this.backoff();
+    }
+
+    /**
+     * Libera a vaga sem ajustar o limite (requisições longas por natureza, como exportação e importação).
+     */
+    public void onIgnore() {
+        this.inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) this.limit;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Latência de base medida, em nanossegundos; zero antes da primeira resposta.
+     */
+    public synchronized long getBaselineLatency() {
+        return (long) this.baselineLatency;
+    }
+
+    private synchronized void update(long latencyNanos, int used) {
+        if ( this.samples++ == 0 ) {
+            this.shortLatency = latencyNanos;
+            this.baselineLatency = latencyNanos;
+            return;
+        }
+        this.shortLatency += (latencyNanos - this.shortLatency) / SHORT_WINDOW;
+        this.baselineLatency += (latencyNanos - this.baselineLatency) / Math.min(this.samples, LONG_WINDOW);
+        // Com a latência bem abaixo da linha de base (a carga caiu) a base acompanha mais rápido
+        if ( this.baselineLatency > 2 * this.shortLatency ) {
+            this.baselineLatency *= 0.95;
+        }
+        // Com menos da metade do limite em uso a latência não diz nada sobre a capacidade
+        double current = this.limit;
+        if ( used * 2 < current ) {
+            return;
+        }
+        double gradient = Math.max( MIN_GRADIENT, Math.min( 1.0, this.tolerance * this.baselineLatency / this.shortLatency ) );
+        double next = current * gradient + Math.sqrt(current);
+        this.limit = clamp( current * (1 - SMOOTHING) + next * SMOOTHING );
+    }
+
+    private synchronized void backoff() {
+        // Uma redução a cada intervalo da latência recente (ao menos 1 ms)
+        long now = System.nanoTime();
+        if ( now - this.lastDropNanos < Math.max( this.shortLatency, 1_000_000 ) ) {
+            return;
+        }
+        this.lastDropNanos = now;
+        this.limit = clamp( this.limit * this.backoffRatio );
+    }
+
+    private double clamp(double value) {
+        return Math.max( this.minLimit, Math.min( this.maxLimit, value ) );
+    }
+
+}
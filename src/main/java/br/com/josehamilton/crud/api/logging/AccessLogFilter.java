@@ -0,0 +1,75 @@
+package br.com.josehamilton.crud.api.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Uma linha de log por requisição com campos fixos: endpoint, userId, latencyMs e outcome.
+ * Requisições bem sucedidas são amostradas; respostas de erro são sempre registradas,
+ * e exceções não tratadas são registradas com a pilha completa.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger("br.com.josehamilton.crud.api.access");
+
+    private static final String FORMAT = "endpoint=\"{} {}\" userId={} latencyMs={} outcome={}";
+
+    private final double sampleRate;
+
+    public AccessLogFilter(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } catch ( IOException | ServletException | RuntimeException | Error ex ) {
+            log.error(FORMAT, request.getMethod(), endpoint(request), userId(request), latencyMillis(start), "exception", ex);
+            throw ex;
+        }
+        int status = response.getStatus();
+        if ( status >= 500 ) {
+            log.error(FORMAT, request.getMethod(), endpoint(request), userId(request), latencyMillis(start), status);
+        } else if ( status >= 400 ) {
+            log.warn(FORMAT, request.getMethod(), endpoint(request), userId(request), latencyMillis(start), status);
+        } else if ( log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < this.sampleRate ) {
+            log.info(FORMAT, request.getMethod(), endpoint(request), userId(request), latencyMillis(start), status);
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        // Padrão da rota (ex.: /api/users/{id}); sem ele, o caminho recebido
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String userId(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if ( variables instanceof Map ) {
+            String id = ((Map<String, String>) variables).get("id");
+            if ( id != null ) {
+                return id;
+            }
+        }
+        return "-";
+    }
+
+    private static long latencyMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+}
@@ -0,0 +1,52 @@
+package br.com.josehamilton.crud.api.mapper;
+
+import br.com.josehamilton.crud.api.dtos.UserDTO;
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+
+/**
+ * Conversão entre {@link User} (ou a projeção {@link UserSummary}) e {@link UserDTO} feita campo a campo, sem reflexão.
+ * Ao adicionar um atributo em uma das classes ele também deve ser incluído aqui.
+ */
+public class UserMapper {
+
+    public User toEntity(UserDTO dto) {
+        if ( dto == null ) {
+            throw new IllegalArgumentException("O usuário a ser mapeado não pode ser nulo.");
+        }
+        return User.builder()
+                .id(dto.getId())
+                .fullname(dto.getFullname())
+                .cpf(dto.getCpf())
+                .email(dto.getEmail())
+                .version(dto.getVersion())
+                .build();
+    }
+
+    public UserDTO toDto(User user) {
+        if ( user == null ) {
+            throw new IllegalArgumentException("O usuário a ser mapeado não pode ser nulo.");
+        }
+        return UserDTO.builder()
+                .id(user.getId())
+                .fullname(user.getFullname())
+                .cpf(user.getCpf())
+                .email(user.getEmail())
+                .version(user.getVersion())
+                .build();
+    }
+
+    public UserDTO toDto(UserSummary user) {
+        if ( user == null ) {
+            throw new IllegalArgumentException("O usuário a ser mapeado não pode ser nulo.");
+        }
+        return UserDTO.builder()
+                .id(user.getId())
+                .fullname(user.getFullname())
+                .cpf(user.getCpf())
+                .email(user.getEmail())
+                .version(user.getVersion())
+                .build();
+    }
+
+}
@@ -0,0 +1,55 @@
+package br.com.josehamilton.crud.api.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate durante a requisição corrente.
+ * O contador é aberto pelo {@link QueryCountFilter}; fora de uma requisição nada é contado.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1826457194385102737L;
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger counter = CURRENT.get();
+        if ( counter != null ) {
+            counter.incrementAndGet();
+        }
+        return sql;
+    }
+
+    static AtomicInteger start() {
+        AtomicInteger counter = new AtomicInteger();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Mantém a contagem da requisição quando a tarefa roda em outra thread (pool do modo "bounded").
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        AtomicInteger counter = CURRENT.get();
+        if ( counter == null ) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(counter);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+}
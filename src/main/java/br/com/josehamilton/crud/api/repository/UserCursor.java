@@ -0,0 +1,103 @@
+package br.com.josehamilton.crud.api.repository;
+
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.exception.BusinessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Posição da paginação por cursor: campo de ordenação, direção e a chave (valor do campo, id) do último
+ * registro entregue. É trafegado para o cliente como um token opaco.
+ */
+public final class UserCursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+    private static final String ID = "id";
+    private static final List<String> PROPERTIES = Arrays.asList(ID, "fullname", "email", "cpf");
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long lastId;
+    private final String lastValue;
+
+    private UserCursor(String property, Sort.Direction direction, Long lastId, String lastValue) {
+        this.property = property;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * Cursor da primeira página a partir do parâmetro de ordenação, no formato {@code campo[,asc|desc]}.
+     */
+    public static UserCursor start(String sort) {
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        if ( !PROPERTIES.contains(property) ) {
+            throw new BusinessException("Campo de ordenação inválido: " + property + ".");
+        }
+        Sort.Direction direction = parts.length > 1
+                ? Sort.Direction.fromOptionalString( parts[1].trim() ).orElse(Sort.Direction.ASC)
+                : Sort.Direction.ASC;
+        return new UserCursor(property, direction, null, null);
+    }
+
+    public static UserCursor decode(String token) {
+        try {
+            String decoded = new String( Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8 );
+            // O valor do campo fica por último pois pode conter o separador
+            String[] parts = decoded.split("\\|", 5);
+            if ( parts.length != 5 || !VERSION.equals(parts[0]) || !PROPERTIES.contains(parts[1]) ) {
+                throw new BusinessException("Cursor inválido.");
+            }
+            return new UserCursor( parts[1], Sort.Direction.valueOf(parts[2]), Long.valueOf(parts[3]), parts[4] );
+        } catch ( IllegalArgumentException ex ) {
+            throw new BusinessException("Cursor inválido.");
+        }
+    }
+
+    public String encode() {
+        String value = String.join(SEPARATOR, VERSION, this.property, this.direction.name(), String.valueOf(this.lastId), this.lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( value.getBytes(StandardCharsets.UTF_8) );
+    }
+
+    public UserCursor next(UserSummary last) {
+        return new UserCursor(this.property, this.direction, last.getId(), this.valueOf(last));
+    }
+
+    public Sort toSort() {
+        // O id desempata registros com o mesmo valor no campo de ordenação
+        if ( ID.equals(this.property) ) {
+            return Sort.by(this.direction, ID);
+        }
+        return Sort.by(this.direction, this.property, ID);
+    }
+
+    public Specification<User> toSpecification() {
+        if ( this.lastId == null ) {
+            return null;
+        }
+        return UserSpecifications.after(this.property, this.direction.isAscending(), this.lastValue, this.lastId);
+    }
+
+    private String valueOf(UserSummary user) {
+        switch ( this.property ) {
+            case "fullname":
+                return user.getFullname();
+            case "email":
+                return user.getEmail();
+            case "cpf":
+                return user.getCpf();
+            default:
+                return String.valueOf( user.getId() );
+        }
+    }
+
+}
@@ -2,10 +2,43 @@ package br.com.josehamilton.crud.api.repository;
 
 import br.com.josehamilton.crud.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserRepositoryCustom {
 
     boolean existsByEmail(String email);
 
     boolean existsByCpf(String cpf);
+
+    // O email deve ser informado normalizado (TextNormalizer.normalizeEmail) e o cpf apenas com dígitos
+    @Query("select u from User u where u.emailNormalized = :email or u.cpf = :cpf")
+    List<User> findByEmailOrCpf(@Param("email") String email, @Param("cpf") String cpf);
+
+    Optional<User> findByCpf(String cpf);
+
+    Optional<User> findByEmailNormalized(String emailNormalized);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int deleteUsersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select u.emailNormalized from User u where u.emailNormalized in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select u.cpf from User u where u.cpf in :cpfs")
+    List<String> findExistingCpfs(@Param("cpfs") Collection<String> cpfs);
 }
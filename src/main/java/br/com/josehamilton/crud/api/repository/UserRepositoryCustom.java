@@ -0,0 +1,39 @@
+package br.com.josehamilton.crud.api.repository;
+
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface UserRepositoryCustom {
+
+    void flushAndClear();
+
+    /**
+     * Pesquisa limitada a {@code limit} registros sem OFFSET e sem a consulta de count, como projeções.
+     */
+    List<UserSummary> findSlice(Specification<User> specification, Sort sort, int limit);
+
+    /**
+     * Página da pesquisa, como projeções, sem a consulta de count, apenas informando se existe uma próxima página.
+     */
+    Slice<UserSummary> findSlice(Specification<User> specification, Pageable pageable);
+
+    /**
+     * Altera apenas os campos não nulos de {@code changes} em um único UPDATE, incrementando a versão.
+     * Quando {@code changes} possui versão ela precisa ser igual à gravada. Retorna o número de linhas alteradas.
+     * As entidades carregadas antes são liberadas do contexto de persistência.
+     */
+    int updateChangedFields(Long id, User changes);
+
+    /**
+     * Percorre os usuários da pesquisa em ordem de id com um cursor somente de avanço. As linhas são projeções,
+     * nada fica no contexto de persistência durante a leitura. Deve ser chamado dentro de uma transação.
+     */
+    void forEach(Specification<User> specification, Consumer<UserSummary> consumer);
+}
@@ -0,0 +1,118 @@
+package br.com.josehamilton.crud.api.repository;
+
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.utils.TextNormalizer;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void flushAndClear() {
+        // Envia os inserts pendentes em lote e libera as entidades do contexto de persistência
+        this.entityManager.flush();
+        this.entityManager.clear();
+    }
+
+    @Override
+    public List<UserSummary> findSlice(Specification<User> specification, Sort sort, int limit) {
+        return this.createQuery(specification, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Slice<UserSummary> findSlice(Specification<User> specification, Pageable pageable) {
+        TypedQuery<UserSummary> query = this.createQuery(specification, pageable.getSort());
+        if ( pageable.isUnpaged() ) {
+            return new SliceImpl<>( query.getResultList(), pageable, false );
+        }
+        // Buscando um registro a mais para saber se existe uma próxima página
+        List<UserSummary> content = query
+                .setFirstResult( (int) pageable.getOffset() )
+                .setMaxResults( pageable.getPageSize() + 1 )
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>( hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext );
+    }
+
+    @Override
+    public int updateChangedFields(Long id, User changes) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = cb.createCriteriaUpdate(User.class);
+        Root<User> root = update.from(User.class);
+        // As colunas normalizadas acompanham os campos alterados, o @PreUpdate não é executado em UPDATE direto
+        if ( changes.getFullname() != null ) {
+            update.set("fullname", changes.getFullname());
+            update.set("fullnameNormalized", TextNormalizer.normalize( changes.getFullname() ));
+        }
+        if ( changes.getEmail() != null ) {
+            update.set("email", changes.getEmail());
+            update.set("emailNormalized", TextNormalizer.normalizeEmail( changes.getEmail() ));
+        }
+        if ( changes.getCpf() != null ) {
+            update.set("cpf", TextNormalizer.normalizeCpf( changes.getCpf() ));
+        }
+        Path<Long> version = root.get("version");
+        update.set( version, cb.sum(version, 1L) );
+        Predicate where = cb.equal( root.get("id"), id );
+        if ( changes.getVersion() != null ) {
+            where = cb.and( where, cb.equal(version, changes.getVersion()) );
+        }
+        update.where(where);
+        int updatedRows = this.entityManager.createQuery(update).executeUpdate();
+        // O UPDATE direto não altera as entidades já carregadas; elas são liberadas para que uma leitura seguinte
+        // na mesma transação traga os valores gravados
+        this.entityManager.clear();
+        return updatedRows;
+    }
+
+    @Override
+    public void forEach(Specification<User> specification, Consumer<UserSummary> consumer) {
+        TypedQuery<UserSummary> query = this.createQuery(specification, Sort.by("id"))
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+        // As linhas são projeções, nada se acumula no contexto de persistência durante a leitura
+        try ( Stream<UserSummary> users = query.getResultStream() ) {
+            users.forEach(consumer);
+        }
+    }
+
+    private TypedQuery<UserSummary> createQuery(Specification<User> specification, Sort sort) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> query = cb.createQuery(UserSummary.class);
+        Root<User> root = query.from(User.class);
+        // Projeção apenas das colunas retornadas pela API: sem entidades gerenciadas nem snapshots de dirty checking
+        query.select( cb.construct( UserSummary.class, root.get("id"), root.get("fullname"), root.get("cpf"),
+                root.get("email"), root.get("version") ) );
+        if ( specification != null ) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if ( predicate != null ) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy( QueryUtils.toOrders(sort, root, cb) );
+        return this.entityManager.createQuery(query);
+    }
+}
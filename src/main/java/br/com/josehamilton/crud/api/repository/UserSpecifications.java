@@ -0,0 +1,135 @@
+package br.com.josehamilton.crud.api.repository;
+
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserTrigram;
+import br.com.josehamilton.crud.api.utils.TextNormalizer;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filtros da pesquisa de usuários. Cada campo usa a comparação que aproveita o índice da sua coluna:
+ * igualdade para id e cpf completo, prefixo para email e cpf parcial, e o índice de trigramas para
+ * trechos do nome.
+ */
+public final class UserSpecifications {
+
+    private static final int CPF_LENGTH = 11;
+    private static final char ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Monta a pesquisa a partir dos campos preenchidos no filtro, retornando {@code null} quando nenhum foi informado.
+     */
+    public static Specification<User> matching(User filter) {
+        List<Specification<User>> specifications = new ArrayList<>();
+        // Filtros por igualdade limitam o resultado a no máximo um registro
+        boolean selective = false;
+        if ( filter.getId() != null ) {
+            specifications.add( idEquals(filter.getId()) );
+            selective = true;
+        }
+        String cpf = TextNormalizer.normalizeCpf( filter.getCpf() );
+        if ( StringUtils.hasText(cpf) ) {
+            if ( cpf.length() == CPF_LENGTH ) {
+                specifications.add( cpfEquals(cpf) );
+                selective = true;
+            } else {
+                specifications.add( cpfStartsWith(cpf) );
+            }
+        }
+        String email = TextNormalizer.normalizeEmail( filter.getEmail() );
+        if ( StringUtils.hasText(email) ) {
+            specifications.add( emailStartsWith(email) );
+        }
+        String fullname = TextNormalizer.normalize( filter.getFullname() );
+        if ( StringUtils.hasText(fullname) ) {
+            if ( selective ) {
+                // O registro já foi localizado por igualdade, o nome é apenas conferido
+                specifications.add( fullnameLike(fullname) );
+            } else if ( fullname.length() < TextNormalizer.TRIGRAM_LENGTH ) {
+                specifications.add( fullnameStartsWith(fullname) );
+            } else {
+                specifications.add( fullnameContains(fullname) );
+            }
+        }
+        return specifications.stream().reduce(Specification::and).orElse(null);
+    }
+
+    public static Specification<User> idEquals(Long id) {
+        return (root, query, cb) -> cb.equal( root.get("id"), id );
+    }
+
+    public static Specification<User> cpfEquals(String cpf) {
+        return (root, query, cb) -> cb.equal( root.get("cpf"), cpf );
+    }
+
+    public static Specification<User> cpfStartsWith(String cpf) {
+        return (root, query, cb) -> cb.like( root.get("cpf"), escapeLike(cpf) + "%", ESCAPE );
+    }
+
+    public static Specification<User> emailStartsWith(String normalizedEmail) {
+        return (root, query, cb) -> cb.like( root.get("emailNormalized"), escapeLike(normalizedEmail) + "%", ESCAPE );
+    }
+
+    public static Specification<User> fullnameStartsWith(String normalizedFullname) {
+        return (root, query, cb) -> cb.like( root.get("fullnameNormalized"), escapeLike(normalizedFullname) + "%", ESCAPE );
+    }
+
+    public static Specification<User> fullnameLike(String normalizedFullname) {
+        return (root, query, cb) -> cb.like( root.get("fullnameNormalized"), "%" + escapeLike(normalizedFullname) + "%", ESCAPE );
+    }
+
+    /**
+     * Busca por trecho do nome: os candidatos são os usuários que possuem todos os trigramas do trecho
+     * (consulta no índice de trigramas) e a comparação final confirma a ordem dos trigramas.
+     */
+    public static Specification<User> fullnameContains(String normalizedFullname) {
+        Set<String> trigrams = TextNormalizer.trigrams(normalizedFullname);
+        return (root, query, cb) -> {
+            Subquery<Long> candidates = query.subquery(Long.class);
+            Root<UserTrigram> trigram = candidates.from(UserTrigram.class);
+            candidates.select( trigram.get("userId") )
+                    .where( trigram.get("trigram").in(trigrams) )
+                    .groupBy( trigram.get("userId") )
+                    .having( cb.equal( cb.countDistinct( trigram.get("trigram") ), (long) trigrams.size() ) );
+            return cb.and(
+                    root.get("id").in(candidates),
+                    cb.like( root.get("fullnameNormalized"), "%" + escapeLike(normalizedFullname) + "%", ESCAPE )
+            );
+        };
+    }
+
+    /**
+     * Registros posteriores à chave (valor do campo, id) na ordem informada, usado na paginação por cursor.
+     */
+    public static Specification<User> after(String property, boolean ascending, String value, Long id) {
+        return (root, query, cb) -> {
+            Expression<Long> idPath = root.get("id");
+            Predicate afterId = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if ( "id".equals(property) ) {
+                return afterId;
+            }
+            Expression<String> key = root.get(property);
+            Predicate afterKey = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+            return cb.or( afterKey, cb.and( cb.equal(key, value), afterId ) );
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+}
@@ -0,0 +1,20 @@
+package br.com.josehamilton.crud.api.repository;
+
+import br.com.josehamilton.crud.api.entity.UserTrigram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface UserTrigramRepository extends JpaRepository<UserTrigram, Long> {
+
+    @Modifying
+    @Query("delete from UserTrigram t where t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from UserTrigram t where t.userId in :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
+}
@@ -0,0 +1,22 @@
+package br.com.josehamilton.crud.api.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página da paginação por cursor. O {@code nextCursor} deve ser enviado para obter a próxima página e
+ * fica nulo quando não existem mais registros.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private final List<T> content;
+
+    private final int size;
+
+    private final String nextCursor;
+
+}
@@ -0,0 +1,20 @@
+package br.com.josehamilton.crud.api.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Resultado da busca de vários registros por id: {@code content} na ordem dos ids informados e
+ * {@code missing} com os ids que não foram encontrados.
+ */
+@Getter
+@AllArgsConstructor
+public class MultiGetResponse<T> {
+
+    private final List<T> content;
+
+    private final List<Long> missing;
+
+}
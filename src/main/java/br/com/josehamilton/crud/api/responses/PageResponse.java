@@ -0,0 +1,43 @@
+package br.com.josehamilton.crud.api.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Página da pesquisa com apenas o necessário para navegar, no lugar dos metadados do {@code PageImpl}.
+ * {@code totalElements} e {@code totalPages} só são enviados quando o total foi calculado.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"content", "number", "size", "hasNext", "totalElements", "totalPages"})
+public class PageResponse<T> {
+
+    private final List<T> content;
+
+    private final int number;
+
+    private final int size;
+
+    private final boolean hasNext;
+
+    private final Long totalElements;
+
+    private final Integer totalPages;
+
+    public static <T> PageResponse<T> of(Slice<T> slice) {
+        if ( slice instanceof Page ) {
+            Page<T> page = (Page<T>) slice;
+            return new PageResponse<>( page.getContent(), page.getNumber(), page.getSize(), page.hasNext(),
+                    page.getTotalElements(), page.getTotalPages() );
+        }
+        return new PageResponse<>( slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), null, null );
+    }
+
+}
@@ -26,4 +26,9 @@ public class Response<T> {
     public void setErrors(List<String> errors) {
         this.errors = errors;
     }
+
+    // Consulta sem alocar a lista (usado na serialização)
+    public boolean hasErrors() {
+        return this.errors != null && !this.errors.isEmpty();
+    }
 }
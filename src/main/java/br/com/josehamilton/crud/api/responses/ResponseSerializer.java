@@ -0,0 +1,45 @@
+package br.com.josehamilton.crud.api.responses;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Serialização do envelope {@link Response} sem introspecção: os nomes dos campos são pré-codificados
+ * e a lista de erros vazia é escrita sem alocar a lista.
+ */
+@JsonComponent
+@SuppressWarnings("rawtypes")
+public class ResponseSerializer extends StdSerializer<Response> {
+
+    private static final long serialVersionUID = -2184015738465097121L;
+
+    private static final SerializedString DATA = new SerializedString("data");
+
+    private static final SerializedString ERRORS = new SerializedString("errors");
+
+    public ResponseSerializer() {
+        super(Response.class);
+    }
+
+    @Override
+    public void serialize(Response value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(DATA);
+        provider.defaultSerializeValue(value.getData(), gen);
+        gen.writeFieldName(ERRORS);
+        gen.writeStartArray();
+        if ( value.hasErrors() ) {
+            for ( Object error : value.getErrors() ) {
+                gen.writeString( String.valueOf(error) );
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+}
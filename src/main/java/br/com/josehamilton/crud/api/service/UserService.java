@@ -1,20 +1,51 @@
 package br.com.josehamilton.crud.api.service;
 
 import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.repository.UserCursor;
+import br.com.josehamilton.crud.api.responses.CursorPage;
+import br.com.josehamilton.crud.api.responses.Response;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserService {
 
     User save(User user);
 
+    List<Response<User>> saveAll(List<User> users);
+
     Optional<User> getUserById(Long id);
 
+    Map<Long, User> getUsersByIds(Collection<Long> ids);
+
+    Optional<User> getUserByCpf(String cpf);
+
+    Optional<User> getUserByEmail(String email);
+
+    Optional<Long> getUserVersion(Long id);
+
     void delete(User user);
 
+    boolean deleteById(Long id);
+
+    int deleteAllById(Collection<Long> ids);
+
     User update(User user);
 
-    Page<User> find(User filter, Pageable pageRequest);
+    boolean patch(Long id, User changes);
+
+    Page<UserSummary> find(User filter, Pageable pageRequest);
+
+    Slice<UserSummary> findSlice(User filter, Pageable pageRequest);
+
+    CursorPage<UserSummary> findByCursor(User filter, UserCursor cursor, int size);
+
+    void export(User filter, Consumer<UserSummary> consumer);
 }
@@ -0,0 +1,236 @@
+package br.com.josehamilton.crud.api.service.impl;
+
+import br.com.josehamilton.crud.api.datasource.ReadYourWritesContext;
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.exception.ServiceUnavailableException;
+import br.com.josehamilton.crud.api.metrics.QueryCounter;
+import br.com.josehamilton.crud.api.repository.UserCursor;
+import br.com.josehamilton.crud.api.responses.CursorPage;
+import br.com.josehamilton.crud.api.responses.Response;
+import br.com.josehamilton.crud.api.service.UserService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Modo de execução "bounded": as chamadas ao JPA rodam em um pool limitado ao tamanho do pool de conexões.
+// Requisições além da capacidade da fila falham na hora com 503, em vez de prenderem threads do Tomcat
+// esperando por uma conexão do Hikari. Leituras que passam do tempo limite são canceladas; escritas só respondem 503
+// enquanto ainda estão na fila, porque uma escrita em andamento pode ser gravada depois da resposta. A exportação,
+// que ocupa a thread pelo tempo da resposta inteira, tem um pool próprio para não tomar as vagas das demais chamadas.
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "user.api", name = "execution-mode", havingValue = "bounded")
+public class BoundedUserService implements UserService {
+
+    private static final String OVERLOADED = "Servidor sobrecarregado, tente novamente.";
+
+    private final UserService delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ThreadPoolExecutor exportExecutor;
+
+    private final long timeoutMillis;
+
+    public BoundedUserService( @Qualifier("userServiceImpl") UserService delegate,
+                               @Value("${user.api.jdbc-pool.size:10}") int poolSize,
+                               @Value("${user.api.jdbc-pool.queue-capacity:100}") int queueCapacity,
+                               @Value("${user.api.jdbc-pool.timeout-ms:5000}") long timeoutMillis,
+                               @Value("${user.api.jdbc-pool.export-size:2}") int exportPoolSize ) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor( poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("user-jdbc-"),
+                new ThreadPoolExecutor.AbortPolicy() );
+        // Sem fila: com todas as exportações em andamento a próxima recebe 503 na hora
+        this.exportExecutor = new ThreadPoolExecutor( exportPoolSize, exportPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("user-export-"),
+                new ThreadPoolExecutor.AbortPolicy() );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdown();
+        this.exportExecutor.shutdown();
+    }
+
+    @Override
+    public User save(User user) {
+        return this.write( () -> this.delegate.save(user) );
+    }
+
+    @Override
+    public List<Response<User>> saveAll(List<User> users) {
+        return this.write( () -> this.delegate.saveAll(users) );
+    }
+
+    @Override
+    public Optional<User> getUserById(Long id) {
+        return this.read( () -> this.delegate.getUserById(id) );
+    }
+
+    @Override
+    public Map<Long, User> getUsersByIds(Collection<Long> ids) {
+        return this.read( () -> this.delegate.getUsersByIds(ids) );
+    }
+
+    @Override
+    public Optional<User> getUserByCpf(String cpf) {
+        return this.read( () -> this.delegate.getUserByCpf(cpf) );
+    }
+
+    @Override
+    public Optional<User> getUserByEmail(String email) {
+        return this.read( () -> this.delegate.getUserByEmail(email) );
+    }
+
+    @Override
+    public Optional<Long> getUserVersion(Long id) {
+        return this.read( () -> this.delegate.getUserVersion(id) );
+    }
+
+    @Override
+    public void delete(User user) {
+        this.write( () -> {
+            this.delegate.delete(user);
+            return null;
+        } );
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        return this.write( () -> this.delegate.deleteById(id) );
+    }
+
+    @Override
+    public int deleteAllById(Collection<Long> ids) {
+        return this.write( () -> this.delegate.deleteAllById(ids) );
+    }
+
+    @Override
+    public User update(User user) {
+        return this.write( () -> this.delegate.update(user) );
+    }
+
+    @Override
+    public boolean patch(Long id, User changes) {
+        return this.write( () -> this.delegate.patch(id, changes) );
+    }
+
+    @Override
+    public Page<UserSummary> find(User filter, Pageable pageRequest) {
+        return this.read( () -> this.delegate.find(filter, pageRequest) );
+    }
+
+    @Override
+    public Slice<UserSummary> findSlice(User filter, Pageable pageRequest) {
+        return this.read( () -> this.delegate.findSlice(filter, pageRequest) );
+    }
+
+    @Override
+    public CursorPage<UserSummary> findByCursor(User filter, UserCursor cursor, int size) {
+        return this.read( () -> this.delegate.findByCursor(filter, cursor, size) );
+    }
+
+    @Override
+    public void export(User filter, Consumer<UserSummary> consumer) {
+        // A exportação dura o tempo da escrita da resposta, por isso não tem limite de tempo
+        this.read( this.exportExecutor, () -> {
+            this.delegate.export(filter, consumer);
+            return null;
+        }, 0 );
+    }
+
+    private <T> T read(Callable<T> task) {
+        return this.read(this.executor, task, this.timeoutMillis);
+    }
+
+    private <T> T read(ThreadPoolExecutor executor, Callable<T> task, long timeout) {
+        Future<T> future = submit(executor, task);
+        try {
+            return await(future, timeout);
+        } catch ( TimeoutException ex ) {
+            future.cancel(true);
+            throw new ServiceUnavailableException(OVERLOADED);
+        }
+    }
+
+    private <T> T write(Callable<T> task) {
+        // Quem marcar primeiro decide: a thread do pool (a escrita roda) ou quem desistiu na fila (a escrita é descartada)
+        AtomicBoolean claimed = new AtomicBoolean();
+        FutureTask<T> future = submit( this.executor, () -> claimed.compareAndSet(false, true) ? task.call() : null );
+        long timeout = this.timeoutMillis;
+        while ( true ) {
+            try {
+                return await(future, timeout);
+            } catch ( TimeoutException ex ) {
+                if ( claimed.compareAndSet(false, true) ) {
+                    // Libera o lugar na fila
+                    this.executor.remove(future);
+                    future.cancel(false);
+                    throw new ServiceUnavailableException(OVERLOADED);
+                }
+                // Já em execução: espera o resultado em vez de responder 503 a uma alteração que será gravada
+                timeout = 0;
+            }
+        }
+    }
+
+    private static <T> FutureTask<T> submit(ThreadPoolExecutor executor, Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>( ReadYourWritesContext.propagate( QueryCounter.propagate(task) ) );
+        try {
+            executor.execute(future);
+            return future;
+        } catch ( RejectedExecutionException ex ) {
+            // Pool e fila cheios: falha imediata
+            throw new ServiceUnavailableException(OVERLOADED);
+        }
+    }
+
+    // Aguarda o resultado (sem limite de tempo com timeout 0)
+    private static <T> T await(Future<T> future, long timeout) throws TimeoutException {
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch ( InterruptedException ex ) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(OVERLOADED);
+        } catch ( ExecutionException ex ) {
+            // Repassa a exceção original do serviço (BusinessException, OptimisticLockingFailureException...)
+            Throwable cause = ex.getCause();
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
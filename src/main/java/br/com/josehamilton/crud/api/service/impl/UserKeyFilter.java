@@ -0,0 +1,115 @@
+package br.com.josehamilton.crud.api.service.impl;
+
+import br.com.josehamilton.crud.api.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Filtro de Bloom com os emails (normalizados) e cpfs cadastrados. Quando nenhuma das chaves está no filtro
+ * a verificação de unicidade dispensa a consulta ao banco. Até a primeira carga todas as chaves são tratadas
+ * como possivelmente existentes.
+ */
+@Component
+public class UserKeyFilter {
+
+    private static final String EMAIL = "email:";
+
+    private static final String CPF = "cpf:";
+
+    private final long expectedKeys;
+
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter current;
+
+    // Filtro em reconstrução, também recebe as chaves gravadas durante a carga
+    private volatile BloomFilter building;
+
+    private final Counter definiteMisses;
+
+    private final Counter possibleHits;
+
+    private final Counter falsePositives;
+
+    public UserKeyFilter( @Value("${user.key-filter.expected-keys}") long expectedKeys,
+                          @Value("${user.key-filter.false-positive-rate}") double falsePositiveRate,
+                          MeterRegistry registry ) {
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.definiteMisses = checks(registry, "definite_miss");
+        this.possibleHits = checks(registry, "possible_hit");
+        this.falsePositives = checks(registry, "false_positive");
+        Gauge.builder("user.key.filter.expected.fpp", this, filter -> filter.current != null ? filter.current.expectedFalsePositiveRate() : 1.0)
+                .description("Taxa de falso positivo esperada do filtro de chaves")
+                .register(registry);
+        Gauge.builder("user.key.filter.memory", this, filter -> filter.current != null ? filter.current.memoryBytes() : 0)
+                .description("Memória ocupada pelo filtro de chaves")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Falso apenas quando nenhuma das chaves informadas com certeza existe.
+     */
+    public boolean mightContain(String normalizedEmail, String cpf) {
+        BloomFilter filter = this.current;
+        if ( filter == null ) {
+            return true;
+        }
+        boolean possible = (normalizedEmail != null && filter.mightContain(EMAIL + normalizedEmail))
+                || (cpf != null && filter.mightContain(CPF + cpf));
+        (possible ? this.possibleHits : this.definiteMisses).increment();
+        return possible;
+    }
+
+    public void recordFalsePositive() {
+        if ( this.current != null ) {
+            this.falsePositives.increment();
+        }
+    }
+
+    public void add(String normalizedEmail, String cpf) {
+        put(this.current, normalizedEmail, cpf);
+        put(this.building, normalizedEmail, cpf);
+    }
+
+    /**
+     * Monta um novo filtro com as chaves fornecidas pela origem e o coloca no lugar do atual.
+     * Chaves de usuários removidos ou alterados só deixam o filtro assim.
+     */
+    public synchronized void rebuild(Consumer<Consumer<String[]>> source) {
+        BloomFilter next = new BloomFilter(this.expectedKeys, this.falsePositiveRate);
+        this.building = next;
+        try {
+            source.accept( keys -> put(next, keys[0], keys[1]) );
+            this.current = next;
+        } finally {
+            this.building = null;
+        }
+    }
+
+    private static void put(BloomFilter filter, String normalizedEmail, String cpf) {
+        if ( filter == null ) {
+            return;
+        }
+        if ( normalizedEmail != null ) {
+            filter.put(EMAIL + normalizedEmail);
+        }
+        if ( cpf != null ) {
+            filter.put(CPF + cpf);
+        }
+    }
+
+    private static Counter checks(MeterRegistry registry, String result) {
+        return Counter.builder("user.key.filter.checks")
+                .description("Verificações de unicidade pelo filtro de chaves")
+                .tag("result", result)
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,52 @@
+package br.com.josehamilton.crud.api.service.impl;
+
+import br.com.josehamilton.crud.api.repository.UserRepository;
+import br.com.josehamilton.crud.api.utils.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Carrega o {@link UserKeyFilter} percorrendo os usuários ao iniciar a aplicação e o reconstrói
+ * periodicamente para descartar as chaves de usuários removidos ou alterados.
+ */
+@Slf4j
+@Component
+public class UserKeyFilterLoader {
+
+    private final UserRepository userRepository;
+
+    private final UserKeyFilter userKeyFilter;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public UserKeyFilterLoader( UserRepository userRepository, UserKeyFilter userKeyFilter,
+                                PlatformTransactionManager transactionManager ) {
+        this.userRepository = userRepository;
+        this.userKeyFilter = userKeyFilter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        this.rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${user.key-filter.rebuild-interval-ms}", fixedDelayString = "${user.key-filter.rebuild-interval-ms}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        // Leitura em cursor, sem manter os usuários em memória
+        this.userKeyFilter.rebuild( sink -> this.transactionTemplate.execute( status -> {
+            this.userRepository.forEach( null, user -> sink.accept( new String[] {
+                    TextNormalizer.normalizeEmail( user.getEmail() ), user.getCpf() } ) );
+            return null;
+        } ) );
+        log.info("Filtro de chaves de usuários carregado em {} ms.", (System.nanoTime() - start) / 1_000_000);
+    }
+
+}
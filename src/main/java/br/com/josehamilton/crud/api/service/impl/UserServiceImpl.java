@@ -1,79 +1,521 @@
 package br.com.josehamilton.crud.api.service.impl;
 
+import br.com.josehamilton.crud.api.config.CacheConfig;
 import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.entity.UserTrigram;
 import br.com.josehamilton.crud.api.exception.BusinessException;
+import br.com.josehamilton.crud.api.repository.UserCursor;
 import br.com.josehamilton.crud.api.repository.UserRepository;
+import br.com.josehamilton.crud.api.repository.UserSpecifications;
+import br.com.josehamilton.crud.api.repository.UserTrigramRepository;
+import br.com.josehamilton.crud.api.responses.CursorPage;
+import br.com.josehamilton.crud.api.responses.Response;
 import br.com.josehamilton.crud.api.service.UserService;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import br.com.josehamilton.crud.api.utils.SingleFlight;
+import br.com.josehamilton.crud.api.utils.TextNormalizer;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final String EMAIL_ALREADY_EXISTS = "O email já está cadastrado.";
+
+    private static final String CPF_ALREADY_EXISTS = "O cpf já está cadastrado.";
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private static final int FIND_CHUNK_SIZE = 1000;
+
+    // Um timer por método (tags class e method) para separar o tempo do serviço do restante da requisição
+    private static final String USER_SERVICE_TIMER = "user.service";
+
     private UserRepository userRepository;
 
-    public UserServiceImpl( UserRepository userRepository ) {
+    private UserTrigramRepository userTrigramRepository;
+
+    private CacheManager cacheManager;
+
+    private UserKeyFilter userKeyFilter;
+
+    // Leituras concorrentes do mesmo usuário ou da mesma pesquisa compartilham uma única consulta em andamento
+    private final SingleFlight<Long, Optional<User>> userLoads = new SingleFlight<>();
+
+    private final SingleFlight<List<Object>, Page<UserSummary>> pageLoads = new SingleFlight<>();
+
+    public UserServiceImpl( UserRepository userRepository, UserTrigramRepository userTrigramRepository, CacheManager cacheManager,
+                            UserKeyFilter userKeyFilter ) {
         this.userRepository = userRepository;
+        this.userTrigramRepository = userTrigramRepository;
+        this.cacheManager = cacheManager;
+        this.userKeyFilter = userKeyFilter;
     }
 
     @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.USERS, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.USER_COUNTS, allEntries = true)
+    )
+    @Transactional
     public User save(User user) {
-        // Verificação de email se já existe cadastrado na base de dados
-        if ( userRepository.existsByEmail(user.getEmail()) ) {
-            throw new BusinessException("O email já está cadastrado.");
+        user.setCpf( TextNormalizer.normalizeCpf( user.getCpf() ) );
+        // Verificação de email e cpf já cadastrados na base de dados
+        this.checkUniqueKeys(user);
+        // Faz o salvamento da informação
+        User savedUser = this.saveAndFlush( user );
+        this.indexFullname( Collections.singletonList(savedUser) );
+        this.userKeyFilter.add( TextNormalizer.normalizeEmail( savedUser.getEmail() ), savedUser.getCpf() );
+        return savedUser;
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.USER_COUNTS, allEntries = true)
+    @Transactional
+    public List<Response<User>> saveAll(List<User> users) {
+        List<Response<User>> results = new ArrayList<>(users.size());
+        if ( users.isEmpty() ) {
+            return results;
         }
-        // Verificação de cpf se já existe cadastrado na base de dados
-        if ( userRepository.existsByCpf(user.getCpf()) ) {
-            throw new BusinessException("O cpf já está cadastrado.");
+        users.forEach( user -> user.setCpf( TextNormalizer.normalizeCpf( user.getCpf() ) ) );
+        // Verificação em uma única consulta de quais emails e cpfs do lote já existem na base de dados.
+        // O filtro de chaves não é usado aqui: ele pode estar desatualizado (outras instâncias, réplica atrasada)
+        // e uma chave repetida derrubaria o lote inteiro na constraint, sem erro por registro
+        Set<String> emails = users.stream()
+                .map( user -> TextNormalizer.normalizeEmail( user.getEmail() ) )
+                .collect(Collectors.toSet());
+        Set<String> cpfs = users.stream().map(User::getCpf).collect(Collectors.toSet());
+        Set<String> existingEmails = new HashSet<>( this.userRepository.findExistingEmails(emails) );
+        Set<String> existingCpfs = new HashSet<>( this.userRepository.findExistingCpfs(cpfs) );
+        List<User> accepted = new ArrayList<>(users.size());
+        for ( User user : users ) {
+            Response<User> result = new Response<>();
+            String email = TextNormalizer.normalizeEmail( user.getEmail() );
+            if ( existingEmails.contains(email) ) {
+                result.getErrors().add(EMAIL_ALREADY_EXISTS);
+            }
+            if ( existingCpfs.contains(user.getCpf()) ) {
+                result.getErrors().add(CPF_ALREADY_EXISTS);
+            }
+            if ( result.getErrors().isEmpty() ) {
+                // Registrando as chaves aceitas para barrar duplicidades dentro do próprio lote
+                existingEmails.add(email);
+                existingCpfs.add(user.getCpf());
+                // A importação sempre insere novos registros
+                user.setId(null);
+                accepted.add(user);
+                result.setData(user);
+            }
+            results.add(result);
         }
-        // Faz o salvamento da informação
-        return this.userRepository.save( user );
+        // Faz o salvamento em lote e libera as entidades da memória
+        this.userRepository.saveAll(accepted);
+        this.indexFullname(accepted);
+        accepted.forEach( user -> this.userKeyFilter.add( TextNormalizer.normalizeEmail( user.getEmail() ), user.getCpf() ) );
+        this.userRepository.flushAndClear();
+        return results;
     }
 
     @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<User> getUserById(Long id) {
-        // Retorna a classe User dentro de um Optional pelo id
-        return this.userRepository.findById(id);
+        // Usuário em cache (ou a marca de exclusão) responde sem acessar o banco
+        Cache users = this.cacheManager.getCache(CacheConfig.USERS);
+        Cache.ValueWrapper cached = users != null ? users.get(id) : null;
+        if ( cached != null ) {
+            return Optional.ofNullable( (User) cached.get() );
+        }
+        // Retorna a classe User dentro de um Optional pelo id, quem chega durante a consulta aguarda o mesmo resultado
+        return this.userLoads.execute( id, () -> this.userRepository.findById(id) )
+                .flatMap( user -> cacheLoaded(users, user) );
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Map<Long, User> getUsersByIds(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        // Primeiro os usuários em cache, apenas os demais são consultados no banco
+        Cache users = this.cacheManager.getCache(CacheConfig.USERS);
+        List<Long> misses = new ArrayList<>();
+        for ( Long id : new LinkedHashSet<>(ids) ) {
+            Cache.ValueWrapper cached = users != null ? users.get(id) : null;
+            if ( cached == null ) {
+                misses.add(id);
+            } else if ( cached.get() != null ) {
+                found.put(id, (User) cached.get());
+            }
+        }
+        // Consultando em blocos para limitar a quantidade de parâmetros de cada IN; cada bloco abre a própria
+        // transação somente leitura, e quando todos os ids estão em cache nenhuma conexão é usada
+        for ( int from = 0; from < misses.size(); from += FIND_CHUNK_SIZE ) {
+            List<Long> chunk = misses.subList( from, Math.min(from + FIND_CHUNK_SIZE, misses.size()) );
+            for ( User user : this.userRepository.findAllById(chunk) ) {
+                cacheLoaded(users, user).ifPresent( current -> found.put(current.getId(), current) );
+            }
+        }
+        return found;
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<User> getUserByCpf(String cpf) {
+        String key = TextNormalizer.normalizeCpf(cpf);
+        return this.getUserByKey( "cpf:" + key, user -> key.equals( user.getCpf() ),
+                () -> this.userRepository.findByCpf(key) );
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<User> getUserByEmail(String email) {
+        String key = TextNormalizer.normalizeEmail(email);
+        return this.getUserByKey( "email:" + key, user -> key.equals( TextNormalizer.normalizeEmail( user.getEmail() ) ),
+                () -> this.userRepository.findByEmailNormalized(key) );
     }
 
     @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<Long> getUserVersion(Long id) {
+        // Com o usuário em cache a versão é lida dele, sem acessar o banco
+        Cache users = this.cacheManager.getCache(CacheConfig.USERS);
+        Cache.ValueWrapper cached = users != null ? users.get(id) : null;
+        if ( cached != null ) {
+            return Optional.ofNullable( (User) cached.get() )
+                    .map( user -> user.getVersion() != null ? user.getVersion() : 0L );
+        }
+        // Caso contrário apenas a coluna de versão é consultada
+        return this.userRepository.findVersionById(id);
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.USER_COUNTS, allEntries = true)
+    @Transactional
     public void delete(User user) {
         // Verifica se o usuário existe
         if (user == null || user.getId() == null) {
             throw new BusinessException("Usuário que está tentando ser removido não existe.");
         }
-        // Excluindo usuário que foi passado como parâmetro
+        // Excluindo usuário que foi passado como parâmetro e o seu índice de pesquisa
+        this.userTrigramRepository.deleteByUserId(user.getId());
         this.userRepository.delete(user);
+        this.cacheAfterCommit( Collections.singletonList( user.getId() ), id -> null );
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.USER_COUNTS, allEntries = true)
+    @Transactional
+    public boolean deleteById(Long id) {
+        // Excluindo direto pelo id, sem carregar o usuário antes
+        this.userTrigramRepository.deleteByUserId(id);
+        boolean deleted = this.userRepository.deleteUserById(id) > 0;
+        this.cacheAfterCommit( Collections.singletonList(id), deletedId -> null );
+        return deleted;
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.USER_COUNTS, allEntries = true)
+    @Transactional
+    public int deleteAllById(Collection<Long> ids) {
+        // Excluindo em blocos para limitar a quantidade de parâmetros de cada DELETE
+        List<Long> distinctIds = new ArrayList<>( new LinkedHashSet<>(ids) );
+        int deletedRows = 0;
+        for ( int from = 0; from < distinctIds.size(); from += DELETE_CHUNK_SIZE ) {
+            List<Long> chunk = distinctIds.subList( from, Math.min(from + DELETE_CHUNK_SIZE, distinctIds.size()) );
+            this.userTrigramRepository.deleteByUserIdIn(chunk);
+            deletedRows += this.userRepository.deleteUsersByIdIn(chunk);
+        }
+        // Apenas os ids informados são marcados como excluídos no cache; os demais usuários continuam em cache
+        this.cacheAfterCommit( distinctIds, id -> null );
+        return deletedRows;
     }
 
     @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.USERS, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.USER_COUNTS, allEntries = true)
+    )
+    @Transactional
     public User update(User user) {
         // Verifica se o usuário existe
         if (user == null || user.getId() == null) {
             throw new BusinessException("Usuário que está tentando ser alterado não existe.");
         }
-        // Alterando usuário que foi passado como parâmetro
-        return this.userRepository.save( user );
+        user.setCpf( TextNormalizer.normalizeCpf( user.getCpf() ) );
+        // Verificação de email e cpf já cadastrados por outro usuário
+        this.checkUniqueKeys(user);
+        // Sem a versão informada pelo cliente vale a versão atual, lida na transação da escrita (banco principal)
+        // e não a do cache, que pode estar desatualizada e causar um conflito que não existe
+        if ( user.getVersion() == null ) {
+            user.setVersion( this.userRepository.findVersionById( user.getId() )
+                    .orElseThrow( () -> new BusinessException("Usuário que está tentando ser alterado não existe.") ) );
+        }
+        // Alterando usuário que foi passado como parâmetro e refazendo o seu índice de pesquisa
+        User updatedUser = this.saveAndFlush( user );
+        this.userTrigramRepository.deleteByUserId(updatedUser.getId());
+        this.indexFullname( Collections.singletonList(updatedUser) );
+        this.userKeyFilter.add( TextNormalizer.normalizeEmail( updatedUser.getEmail() ), updatedUser.getCpf() );
+        return updatedUser;
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @CacheEvict(cacheNames = CacheConfig.USER_COUNTS, allEntries = true)
+    @Transactional
+    public boolean patch(Long id, User changes) {
+        changes.setId(id);
+        changes.setCpf( TextNormalizer.normalizeCpf( changes.getCpf() ) );
+        // Verificação de email e cpf já cadastrados por outro usuário, apenas quando forem alterados
+        if ( changes.getEmail() != null || changes.getCpf() != null ) {
+            this.checkUniqueKeys(changes);
+        }
+        // Alterando em um único UPDATE somente os campos informados
+        int updatedRows;
+        try {
+            updatedRows = this.userRepository.updateChangedFields(id, changes);
+        } catch ( DataIntegrityViolationException ex ) {
+            throw translateUniqueViolation(ex);
+        }
+        // Nenhuma linha alterada: o usuário não existe ou a versão informada está desatualizada
+        if ( updatedRows == 0 ) {
+            if ( changes.getVersion() != null && this.userRepository.existsById(id) ) {
+                throw new OptimisticLockingFailureException("O usuário foi alterado por outra requisição.");
+            }
+            return false;
+        }
+        this.userKeyFilter.add( TextNormalizer.normalizeEmail( changes.getEmail() ), changes.getCpf() );
+        // Refazendo o índice de pesquisa apenas quando o nome for alterado
+        if ( changes.getFullname() != null ) {
+            this.userTrigramRepository.deleteByUserId(id);
+            this.indexFullname( Collections.singletonList(changes) );
+        }
+        // O usuário alterado é lido nesta transação (banco principal) e vai para o cache após o commit;
+        // só retirá-lo do cache deixaria a próxima leitura trazer de volta a versão anterior da réplica
+        User current = this.userRepository.findById(id).orElse(null);
+        this.cacheAfterCommit( Collections.singletonList(id), changedId -> current );
+        return true;
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Page<UserSummary> find(User filter, Pageable pageRequest) {
+        // Pesquisas iguais (mesmo filtro normalizado e mesma página) em andamento compartilham o resultado
+        return this.pageLoads.execute( Arrays.asList( countKey(filter), pageRequest ), () -> {
+            // Escolhendo a comparação de cada campo informado de acordo com o índice disponível
+            Specification<User> specification = UserSpecifications.matching(filter);
+            // Faz busca com parâmetros e paginação, o total só é contado quando não pode ser deduzido da própria página
+            Slice<UserSummary> slice = this.userRepository.findSlice(specification, pageRequest);
+            return PageableExecutionUtils.getPage( slice.getContent(), pageRequest, () -> this.count(filter, specification) );
+        });
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public Slice<UserSummary> findSlice(User filter, Pageable pageRequest) {
+        // Faz busca com parâmetros e paginação sem a consulta de count
+        return this.userRepository.findSlice( UserSpecifications.matching(filter), pageRequest );
+    }
+
+    @Override
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public CursorPage<UserSummary> findByCursor(User filter, UserCursor cursor, int size) {
+        // Combinando os filtros com a posição do cursor, a consulta avança pelo índice sem OFFSET e sem count
+        Specification<User> specification = Specification
+                .where( UserSpecifications.matching(filter) )
+                .and( cursor.toSpecification() );
+        // Buscando um registro a mais para saber se existe uma próxima página
+        List<UserSummary> content = this.userRepository.findSlice(specification, cursor.toSort(), size + 1);
+        if ( content.size() <= size ) {
+            return new CursorPage<>(content, size, null);
+        }
+        content = new ArrayList<>( content.subList(0, size) );
+        return new CursorPage<>(content, size, cursor.next( content.get(size - 1) ).encode());
     }
 
     @Override
-    public Page<User> find(User filter, Pageable pageRequest) {
-        // Configurando parâmetros dentro de classe Example
-        Example<User> example = Example.of(
-                filter,
-                ExampleMatcher
-                        .matching()
-                        .withIgnoreCase()
-                        .withIgnoreNullValues()
-                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
-        );
-        // Faz busca com parâmetros e paginação
-        return this.userRepository.findAll(example, pageRequest);
+    @Timed(USER_SERVICE_TIMER)
+    @Transactional(readOnly = true)
+    public void export(User filter, Consumer<UserSummary> consumer) {
+        // Percorre a pesquisa com um cursor do banco, mantendo em memória apenas o registro atual
+        this.userRepository.forEach( UserSpecifications.matching(filter), consumer );
+    }
+
+    private void checkUniqueKeys(User user) {
+        String email = TextNormalizer.normalizeEmail( user.getEmail() );
+        // Chaves que com certeza não existem dispensam a consulta
+        if ( !this.userKeyFilter.mightContain(email, user.getCpf()) ) {
+            return;
+        }
+        // Uma única consulta traz os usuários que já utilizam o email ou o cpf informados
+        List<User> found = this.userRepository.findByEmailOrCpf(email, user.getCpf());
+        if ( found.isEmpty() ) {
+            this.userKeyFilter.recordFalsePositive();
+            return;
+        }
+        List<User> conflicts = found
+                .stream()
+                .filter( conflict -> !Objects.equals(conflict.getId(), user.getId()) )
+                .collect(Collectors.toList());
+        if ( conflicts.stream().anyMatch( conflict -> Objects.equals(TextNormalizer.normalizeEmail( conflict.getEmail() ), email) ) ) {
+            throw new BusinessException(EMAIL_ALREADY_EXISTS);
+        }
+        if ( !conflicts.isEmpty() ) {
+            throw new BusinessException(CPF_ALREADY_EXISTS);
+        }
+    }
+
+    private User saveAndFlush(User user) {
+        // As constraints de unicidade garantem a regra quando dois cadastros concorrentes passam pela verificação
+        try {
+            return this.userRepository.saveAndFlush( user );
+        } catch ( DataIntegrityViolationException ex ) {
+            throw translateUniqueViolation(ex);
+        }
+    }
+
+    private static RuntimeException translateUniqueViolation(DataIntegrityViolationException ex) {
+        String detail = String.valueOf( ex.getMostSpecificCause().getMessage() );
+        if ( ex.getCause() instanceof ConstraintViolationException ) {
+            detail = ((ConstraintViolationException) ex.getCause()).getConstraintName() + " " + detail;
+        }
+        detail = detail.toLowerCase(Locale.ROOT);
+        if ( detail.contains(User.UK_EMAIL) ) {
+            return new BusinessException(EMAIL_ALREADY_EXISTS);
+        }
+        if ( detail.contains(User.UK_CPF) ) {
+            return new BusinessException(CPF_ALREADY_EXISTS);
+        }
+        return ex;
+    }
+
+    private long count(User filter, Specification<User> specification) {
+        // O total de cada filtro fica em cache por um curto período e é descartado a cada alteração de usuários
+        Cache counts = this.cacheManager.getCache(CacheConfig.USER_COUNTS);
+        return counts.get( countKey(filter), () -> this.userRepository.count(specification) );
+    }
+
+    private static String countKey(User filter) {
+        // Chave montada com os valores normalizados para que filtros equivalentes compartilhem o total
+        return String.join("|",
+                String.valueOf( filter.getId() ),
+                String.valueOf( TextNormalizer.normalizeCpf( filter.getCpf() ) ),
+                String.valueOf( TextNormalizer.normalizeEmail( filter.getEmail() ) ),
+                String.valueOf( TextNormalizer.normalize( filter.getFullname() ) ));
+    }
+
+    private Optional<User> getUserByKey(String key, Predicate<User> stillMatches, Supplier<Optional<User>> finder) {
+        Cache keys = this.cacheManager.getCache(CacheConfig.USER_KEYS);
+        Cache users = this.cacheManager.getCache(CacheConfig.USERS);
+        // Caminho rápido: chave -> id -> usuário em cache, conferindo se o usuário ainda possui a chave
+        Long id = keys != null ? keys.get(key, Long.class) : null;
+        if ( id != null ) {
+            Cache.ValueWrapper cached = users != null ? users.get(id) : null;
+            User cachedUser = cached != null ? (User) cached.get() : null;
+            if ( cachedUser != null && stillMatches.test(cachedUser) ) {
+                return Optional.of(cachedUser);
+            }
+            // Usuário removido ou com a chave alterada: a entrada é descartada e a pesquisa vai ao banco
+            keys.evict(key);
+        }
+        // Só a consulta do repositório abre uma transação (e pega uma conexão); o caminho rápido não usa o banco
+        // O que uma escrita deixou no cache vale mais que a linha lida, que pode vir da réplica atrasada
+        Optional<User> found = finder.get()
+                .flatMap( user -> cacheLoaded(users, user) )
+                .filter(stillMatches);
+        found.ifPresent( user -> {
+            if ( keys != null ) {
+                keys.put(key, user.getId());
+            }
+        } );
+        return found;
+    }
+
+    private void indexFullname(Collection<User> users) {
+        // Gravando os trigramas do nome normalizado usados na pesquisa por trecho do nome
+        List<UserTrigram> trigrams = new ArrayList<>();
+        for ( User user : users ) {
+            TextNormalizer.trigrams( TextNormalizer.normalize(user.getFullname()) ).forEach( trigram ->
+                    trigrams.add( UserTrigram.builder().userId(user.getId()).trigram(trigram).build() ) );
+        }
+        this.userTrigramRepository.saveAll(trigrams);
+    }
+
+    private void cacheAfterCommit(Collection<Long> ids, Function<Long, User> current) {
+        // Grava no cache o estado confirmado de cada id (null marca o usuário como excluído) somente depois do
+        // commit; fora de uma transação não há commit a aguardar
+        Cache users = this.cacheManager.getCache(CacheConfig.USERS);
+        if ( users == null ) {
+            return;
+        }
+        Runnable action = () -> ids.forEach( id -> users.put(id, current.apply(id)) );
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<User> cacheLoaded(Cache users, User loaded) {
+        if ( users == null ) {
+            return Optional.of(loaded);
+        }
+        // A linha lida só entra no cache se ele não tiver nada para o id: o que uma escrita gravou após o commit
+        // (inclusive a marca de exclusão) não é sobrescrito por uma leitura da réplica ainda atrasada.
+        // No Caffeine o putIfAbsent vai direto ao mapa para não contar como mais uma falha nas métricas do cache
+        Cache.ValueWrapper existing;
+        Object nativeCache = users.getNativeCache();
+        if ( nativeCache instanceof com.github.benmanes.caffeine.cache.Cache ) {
+            Object stored = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap()
+                    .putIfAbsent(loaded.getId(), loaded);
+            existing = stored == null ? null : new SimpleValueWrapper( stored instanceof NullValue ? null : stored );
+        } else {
+            existing = users.putIfAbsent(loaded.getId(), loaded);
+        }
+        return existing == null ? Optional.of(loaded) : Optional.ofNullable( (User) existing.get() );
     }
 
 }
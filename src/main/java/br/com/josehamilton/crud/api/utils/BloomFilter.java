@@ -0,0 +1,105 @@
+package br.com.josehamilton.crud.api.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de textos, seguro para uso concorrente. {@link #mightContain(String)} falso garante que o
+ * texto nunca foi adicionado; verdadeiro pode ser um falso positivo, com a taxa definida na criação.
+ * Não permite remoção: textos removidos só saem do filtro ao criar um novo.
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+
+    private final long numBits;
+
+    private final int numHashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if ( expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1 ) {
+            throw new IllegalArgumentException("Informe uma quantidade positiva e uma taxa de falso positivo entre 0 e 1.");
+        }
+        // Tamanho e quantidade de funções de hash ótimos para a quantidade e a taxa informadas
+        long optimalBits = (long) Math.ceil( -expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2) );
+        int words = (int) Math.min( Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64) );
+        this.bits = new AtomicLongArray(words);
+        this.numBits = words * 64L;
+        this.numHashes = Math.max( 1, (int) Math.round( (double) this.numBits / expectedInsertions * LN2 ) );
+    }
+
+    public void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for ( int i = 1; i <= this.numHashes; i++ ) {
+            this.setBit( index(h1, h2, i) );
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for ( int i = 1; i <= this.numHashes; i++ ) {
+            long bit = index(h1, h2, i);
+            if ( (this.bits.get( (int) (bit >>> 6) ) & (1L << bit)) == 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Taxa de falso positivo esperada com os bits já marcados.
+     */
+    public double expectedFalsePositiveRate() {
+        long marked = 0;
+        for ( int i = 0; i < this.bits.length(); i++ ) {
+            marked += Long.bitCount( this.bits.get(i) );
+        }
+        return Math.pow( (double) marked / this.numBits, this.numHashes );
+    }
+
+    public long memoryBytes() {
+        return this.numBits / 8;
+    }
+
+    private long index(int h1, int h2, int i) {
+        // Hash duplo: as k posições são derivadas de dois hashes de 32 bits
+        int combined = h1 + i * h2;
+        if ( combined < 0 ) {
+            combined = ~combined;
+        }
+        return combined % this.numBits;
+    }
+
+    private void setBit(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = this.bits.get(word);
+            if ( (current & mask) != 0 ) {
+                return;
+            }
+        } while ( !this.bits.compareAndSet(word, current, current | mask) );
+    }
+
+    private static long hash64(String value) {
+        // FNV-1a de 64 bits seguido da mistura final do MurmurHash3 para espalhar os bits
+        long hash = 0xcbf29ce484222325L;
+        for ( int i = 0; i < value.length(); i++ ) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,51 @@
+package br.com.josehamilton.crud.api.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa cargas concorrentes da mesma chave: a primeira chamada executa a carga e as que chegam enquanto ela
+ * está em andamento aguardam e recebem o mesmo resultado (ou a mesma exceção). Nada é guardado depois que a carga
+ * termina, o resultado pode ser tão antigo quanto a consulta em andamento, como o de qualquer leitura iniciada antes.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> running = this.inFlight.putIfAbsent(key, created);
+        if ( running != null ) {
+            return join(running);
+        }
+        try {
+            V value = loader.get();
+            created.complete(value);
+            return value;
+        } catch ( RuntimeException | Error e ) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, created);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch ( CompletionException e ) {
+            // Repassando a exceção original da carga para quem aguardava
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            if ( e.getCause() instanceof Error ) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
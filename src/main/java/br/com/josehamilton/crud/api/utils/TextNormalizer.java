@@ -0,0 +1,59 @@
+package br.com.josehamilton.crud.api.utils;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização dos textos gravados nas colunas de pesquisa, a mesma regra é aplicada ao gravar e ao pesquisar.
+ */
+public final class TextNormalizer {
+
+    public static final int TRIGRAM_LENGTH = 3;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D+");
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String value) {
+        if ( value == null ) {
+            return null;
+        }
+        // Removendo acentos, espaços repetidos e diferenças entre maiúsculas e minúsculas
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        String withoutDiacritics = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(withoutDiacritics).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String normalizeEmail(String value) {
+        if ( value == null ) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String normalizeCpf(String value) {
+        if ( value == null ) {
+            return null;
+        }
+        // Apenas os dígitos: "547.374.910-04" e "54737491004" são o mesmo cpf
+        return NON_DIGITS.matcher(value).replaceAll("");
+    }
+
+    public static Set<String> trigrams(String normalized) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        if ( normalized == null ) {
+            return trigrams;
+        }
+        for ( int i = 0; i + TRIGRAM_LENGTH <= normalized.length(); i++ ) {
+            trigrams.add( normalized.substring(i, i + TRIGRAM_LENGTH) );
+        }
+        return trigrams;
+    }
+
+}
@@ -0,0 +1,33 @@
+-- Sequências com o mesmo incremento do allocationSize das entidades (otimizador pooled do Hibernate)
+create sequence user_seq start with 1 increment by 50;
+create sequence user_trigram_seq start with 1 increment by 100;
+
+create table users (
+    id                  bigint       not null,
+    fullname            varchar(120) not null,
+    cpf                 varchar(11)  not null,
+    email               varchar(120) not null,
+    version             bigint,
+    fullname_normalized varchar(120),
+    email_normalized    varchar(120),
+    constraint pk_users primary key (id),
+    constraint uk_user_email unique (email),
+    constraint uk_user_cpf unique (cpf)
+);
+
+-- email_normalized guarda lower(email) (e fullname_normalized o nome sem acentos em minúsculas):
+-- as pesquisas por igualdade e por prefixo usam estes índices
+create index idx_user_fullname_normalized on users (fullname_normalized);
+create index idx_user_email_normalized on users (email_normalized);
+-- Ordenação por nome na paginação por cursor
+create index idx_user_fullname_id on users (fullname, id);
+
+create table user_trigram (
+    id      bigint     not null,
+    user_id bigint     not null,
+    trigram varchar(3) not null,
+    constraint pk_user_trigram primary key (id)
+);
+
+create index idx_user_trigram_trigram on user_trigram (trigram, user_id);
+create index idx_user_trigram_user on user_trigram (user_id);
@@ -0,0 +1,3 @@
+-- Email único sem diferenciar maiúsculas e minúsculas, o índice também atende as pesquisas por email
+drop index idx_user_email_normalized;
+alter table users add constraint uk_user_email_normalized unique (email_normalized);
@@ -0,0 +1,4 @@
+-- Email único sem diferenciar maiúsculas e minúsculas. O índice mantém varchar_pattern_ops para continuar
+-- atendendo a pesquisa por prefixo; a igualdade usa o mesmo índice
+drop index idx_user_email_normalized;
+create unique index uk_user_email_normalized on users (email_normalized varchar_pattern_ops);
@@ -0,0 +1,96 @@
+package br.com.josehamilton.crud.api.benchmark;
+
+import br.com.josehamilton.crud.api.dtos.UserDTO;
+import br.com.josehamilton.crud.api.responses.PageResponse;
+import br.com.josehamilton.crud.api.responses.Response;
+import br.com.josehamilton.crud.api.responses.ResponseSerializer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização do envelope {@link Response} para um usuário e para uma página de usuários, comparando a
+ * serialização por reflexão com {@code PageImpl} e o {@link ResponseSerializer} com {@link PageResponse}.
+ * O tamanho de cada saída em bytes é o contador secundário {@code bytes}: o JMH soma as iterações de medição,
+ * o valor de cada iteração fica em {@code rawData} no {@code target/jmh-result.json}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper reflective;
+    private ObjectMapper precomputed;
+    private Response<UserDTO> single;
+    private Response<Page<UserDTO>> page;
+    private Response<PageResponse<UserDTO>> compactPage;
+
+    // Tamanho em bytes da última saída da iteração (ASCII, um byte por caractere)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Output {
+
+        public long bytes;
+
+        private String written(String json) {
+            this.bytes = json.length();
+            return json;
+        }
+
+    }
+
+    @Setup
+    public void setUp() {
+        this.reflective = new ObjectMapper();
+        this.precomputed = new ObjectMapper().registerModule( new SimpleModule().addSerializer( new ResponseSerializer() ) );
+        this.single = new Response<>();
+        this.single.setData( createAnUserDTO(1l) );
+        List<UserDTO> content = new ArrayList<>(this.pageSize);
+        for ( long id = 1; id <= this.pageSize; id++ ) {
+            content.add( createAnUserDTO(id) );
+        }
+        this.page = new Response<>();
+        this.page.setData( new PageImpl<>( content, PageRequest.of(0, this.pageSize), 10_000 ) );
+        this.compactPage = new Response<>();
+        this.compactPage.setData( PageResponse.of( this.page.getData() ) );
+    }
+
+    @Benchmark
+    public String serializeSingleReflective(Output output) throws JsonProcessingException {
+        return output.written( this.reflective.writeValueAsString(this.single) );
+    }
+
+    @Benchmark
+    public String serializeSingle(Output output) throws JsonProcessingException {
+        return output.written( this.precomputed.writeValueAsString(this.single) );
+    }
+
+    @Benchmark
+    public String serializePageReflective(Output output) throws JsonProcessingException {
+        return output.written( this.reflective.writeValueAsString(this.page) );
+    }
+
+    @Benchmark
+    public String serializePage(Output output) throws JsonProcessingException {
+        return output.written( this.precomputed.writeValueAsString(this.compactPage) );
+    }
+
+    private static UserDTO createAnUserDTO(long id) {
+        return UserDTO.builder().id(id).fullname("Fulano " + id).email("fulano" + id + "@email.com").cpf("54737491004").build();
+    }
+
+}
@@ -0,0 +1,194 @@
+package br.com.josehamilton.crud.api.benchmark;
+
+import br.com.josehamilton.crud.api.CrudUserSpringBootApplication;
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de carga por HTTP contra o Tomcat embarcado, comparando os modos de execução da API e os perfis de
+ * configuração. Com {@code Mode.SampleTime} o JMH informa a vazão e os percentis (p50, p99, p99.9).
+ * Para medir uma configuração isolada informe-a em {@code overrides}, por exemplo
+ * {@code -p overrides=spring.jpa.open-in-view=true} ou várias separadas por ";".
+ * O limite de concorrência fica desligado, as respostas 503 dele seriam contadas como vazão; para medi-lo informe
+ * {@code -p overrides=user.api.concurrency-limit.enabled=true} e compare os contadores {@code success} e {@code failure}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserApiLoadBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private static final int BATCH = 100;
+
+    private static final int SEED_BATCH = 500;
+
+    @Param({"blocking", "bounded"})
+    public String executionMode;
+
+    @Param({"default", "prod"})
+    public String profile;
+
+    @Param({""})
+    public String overrides;
+
+    private final AtomicLong sequence = new AtomicLong(USERS);
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        List<String> properties = new ArrayList<>( Arrays.asList("server.port=0", "spring.main.banner-mode=off",
+                "logging.level.root=WARN", "user.api.execution-mode=" + this.executionMode,
+                "user.api.concurrency-limit.enabled=false") );
+        if ( !this.overrides.isEmpty() ) {
+            properties.addAll( Arrays.asList( this.overrides.split(";") ) );
+        }
+        // Como argumentos de linha de comando, que têm precedência sobre os arquivos do perfil; com properties()
+        // seriam apenas valores padrão e o perfil prod desfaria os overrides
+        String[] args = properties.stream().map( property -> "--" + property ).toArray(String[]::new);
+        this.context = new SpringApplicationBuilder(CrudUserSpringBootApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles(this.profile)
+                .run(args);
+        int port = ((WebServerApplicationContext) this.context).getWebServer().getPort();
+        this.baseUrl = "http://localhost:" + port + "/api/users";
+        List<User> users = new ArrayList<>(USERS);
+        for ( int i = 0; i < USERS; i++ ) {
+            users.add( User.builder()
+                    .fullname("Fulano " + i)
+                    .email("fulano" + i + "@email.com")
+                    .cpf( String.format("%011d", i) )
+                    .build() );
+        }
+        // Pelo serviço, para que os trigramas da pesquisa por nome também sejam gravados, e em lotes como na
+        // importação: a consulta de chaves existentes de um lote de 10.000 estoura a pilha do parser do Hibernate
+        UserService userService = this.context.getBean(UserService.class);
+        for ( int from = 0; from < USERS; from += SEED_BATCH ) {
+            userService.saveAll( users.subList(from, Math.min(from + SEED_BATCH, USERS)) );
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    /**
+     * Respostas de sucesso (2xx) e de erro de cada thread, para que respostas rápidas de erro não passem por vazão.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+
+        public long success;
+
+        public long failure;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.success = 0;
+            this.failure = 0;
+        }
+
+        int count(int status) {
+            if ( status >= 200 && status < 300 ) {
+                this.success++;
+            } else {
+                this.failure++;
+            }
+            return status;
+        }
+
+    }
+
+    @Benchmark
+    public int getUsersByParam(Responses responses) throws IOException {
+        // Pesquisa sem cache e sem count, sempre vai ao banco
+        return responses.count( this.get("?fullname=fulano&page=0&size=20&count=false") );
+    }
+
+    @Benchmark
+    public int importUsers(Responses responses) throws IOException {
+        // Lote de novos usuários, exercita o batch de inserts
+        StringBuilder body = new StringBuilder("[");
+        for ( int i = 0; i < BATCH; i++ ) {
+            long n = this.sequence.incrementAndGet();
+            body.append(i > 0 ? "," : "")
+                .append("{\"fullname\":\"Fulano ").append(n)
+                .append("\",\"email\":\"fulano").append(n).append("@email.com")
+                .append("\",\"cpf\":\"").append( cpf(n) ).append("\"}");
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(this.baseUrl + "/batch").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try ( OutputStream out = connection.getOutputStream() ) {
+            out.write( body.append("]").toString().getBytes(StandardCharsets.UTF_8) );
+        }
+        return responses.count( read(connection) );
+    }
+
+    private int get(String query) throws IOException {
+        return read( (HttpURLConnection) new URL(this.baseUrl + query).openConnection() );
+    }
+
+    private static int read(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        // Lendo o corpo por completo para a conexão voltar ao keep-alive
+        try ( InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream() ) {
+            if ( body != null ) {
+                byte[] buffer = new byte[8192];
+                while ( body.read(buffer) >= 0 ) {
+                    // descartando
+                }
+            }
+        }
+        return status;
+    }
+
+    private static String cpf(long n) {
+        // Nove dígitos a partir do número e os dois dígitos verificadores
+        int[] digits = new int[11];
+        String base = String.format("%09d", n % 1_000_000_000L);
+        for ( int i = 0; i < 9; i++ ) {
+            digits[i] = base.charAt(i) - '0';
+        }
+        for ( int check = 9; check < 11; check++ ) {
+            int sum = 0;
+            for ( int i = 0; i < check; i++ ) {
+                sum += digits[i] * (check + 1 - i);
+            }
+            int rest = (sum * 10) % 11;
+            digits[check] = rest == 10 ? 0 : rest;
+        }
+        StringBuilder cpf = new StringBuilder(11);
+        for ( int digit : digits ) {
+            cpf.append(digit);
+        }
+        return cpf.toString();
+    }
+
+}
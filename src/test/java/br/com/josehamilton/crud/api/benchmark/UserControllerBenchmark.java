@@ -0,0 +1,77 @@
+package br.com.josehamilton.crud.api.benchmark;
+
+import br.com.josehamilton.crud.api.CrudUserSpringBootApplication;
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requisições completas pelo {@code UserController} (MockMvc, serviço, JPA e H2 embarcado).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserControllerBenchmark {
+
+    private static final String USER_API = "/api/users";
+    private static final int USERS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mvc;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(CrudUserSpringBootApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+        this.mvc = MockMvcBuilders.webAppContextSetup( (WebApplicationContext) this.context ).build();
+        List<User> users = new ArrayList<>(USERS);
+        for ( int i = 0; i < USERS; i++ ) {
+            users.add( User.builder()
+                    .fullname("Fulano " + i)
+                    .email("fulano" + i + "@email.com")
+                    .cpf( String.format("%011d", i) )
+                    .build() );
+        }
+        // Pelo serviço, para que os trigramas da pesquisa por nome também sejam gravados
+        this.userId = this.context.getBean(UserService.class).saveAll(users).get(USERS / 2).getData().getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public MvcResult getUser() throws Exception {
+        return this.mvc.perform( MockMvcRequestBuilders
+                .get(USER_API.concat("/" + this.userId))
+                .accept(MediaType.APPLICATION_JSON) ).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getUsersByParam() throws Exception {
+        return this.mvc.perform( MockMvcRequestBuilders
+                .get(USER_API.concat("?fullname=fulano 1&page=0&size=20"))
+                .accept(MediaType.APPLICATION_JSON) ).andReturn();
+    }
+
+}
@@ -0,0 +1,62 @@
+package br.com.josehamilton.crud.api.benchmark;
+
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.repository.UserRepository;
+import br.com.josehamilton.crud.api.repository.UserTrigramRepository;
+import br.com.josehamilton.crud.api.service.UserService;
+import br.com.josehamilton.crud.api.service.impl.UserKeyFilter;
+import br.com.josehamilton.crud.api.service.impl.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de montar a consulta do {@link UserService#find(User, Pageable)}, isolado da base de dados
+ * por um repositório que apenas devolve uma página vazia.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserFindQueryBenchmark {
+
+    private UserService userService;
+    private User filter;
+    private Pageable pageRequest;
+
+    @Setup
+    public void setUp() {
+        Slice<UserSummary> empty = new SliceImpl<>( Collections.emptyList() );
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{ UserRepository.class },
+                (proxy, method, args) -> empty
+        );
+        UserTrigramRepository trigramRepository = (UserTrigramRepository) Proxy.newProxyInstance(
+                UserTrigramRepository.class.getClassLoader(),
+                new Class<?>[]{ UserTrigramRepository.class },
+                (proxy, method, args) -> null
+        );
+        this.userService = new UserServiceImpl(repository, trigramRepository, new ConcurrentMapCacheManager(), new UserKeyFilter(1000, 0.01, new SimpleMeterRegistry()));
+        this.filter = User.builder().fullname("Fulano").email("fulano@email.com").build();
+        this.pageRequest = PageRequest.of(0, 20);
+    }
+
+    @Benchmark
+    public Page<UserSummary> find() {
+        return this.userService.find(this.filter, this.pageRequest);
+    }
+
+}
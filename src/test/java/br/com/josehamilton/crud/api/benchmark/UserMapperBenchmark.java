@@ -0,0 +1,55 @@
+package br.com.josehamilton.crud.api.benchmark;
+
+import br.com.josehamilton.crud.api.dtos.UserDTO;
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.mapper.UserMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o mapeamento reflexivo do ModelMapper com o {@link UserMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private UserMapper userMapper;
+    private User user;
+    private UserDTO dto;
+
+    @Setup
+    public void setUp() {
+        this.modelMapper = new ModelMapper();
+        this.userMapper = new UserMapper();
+        this.user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        this.dto = UserDTO.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+    }
+
+    @Benchmark
+    public UserDTO modelMapperToDto() {
+        return this.modelMapper.map(this.user, UserDTO.class);
+    }
+
+    @Benchmark
+    public UserDTO userMapperToDto() {
+        return this.userMapper.toDto(this.user);
+    }
+
+    @Benchmark
+    public User modelMapperToEntity() {
+        return this.modelMapper.map(this.dto, User.class);
+    }
+
+    @Benchmark
+    public User userMapperToEntity() {
+        return this.userMapper.toEntity(this.dto);
+    }
+
+}
@@ -3,6 +3,11 @@ package br.com.josehamilton.crud.api.controller;
 import br.com.josehamilton.crud.api.controllers.UserController;
 import br.com.josehamilton.crud.api.dtos.UserDTO;
 import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.exception.ServiceUnavailableException;
+import br.com.josehamilton.crud.api.repository.UserCursor;
+import br.com.josehamilton.crud.api.responses.CursorPage;
+import br.com.josehamilton.crud.api.responses.Response;
 import br.com.josehamilton.crud.api.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
@@ -14,9 +19,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -25,9 +33,15 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -113,6 +127,96 @@ public class UserControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve importar uma lista de usuários informando o resultado de cada linha.")
+    public void createBatchTest() throws Exception {
+        // Cenário
+        String json = new ObjectMapper().writeValueAsString( Arrays.asList( createAnUserDTO(), new UserDTO() ) );
+
+        Response<User> saved = new Response<>();
+        saved.setData( User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build() );
+        BDDMockito.given( userService.saveAll(Mockito.anyList()) ).willReturn( Arrays.asList(saved) );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("data", hasSize(2)) )
+                .andExpect( jsonPath("data[0].data.id").value(1) )
+                .andExpect( jsonPath("data[0].errors", hasSize(0)) )
+                .andExpect( jsonPath("data[1].errors", hasSize(3)) )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve retornar um erro BAD REQUEST ao importar um corpo que não é uma lista.")
+    public void createBatchWithoutArrayTest() throws Exception {
+        // Cenário
+        String json = new ObjectMapper().writeValueAsString( createAnUserDTO() );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors", hasSize(1)) )
+        ;
+        Mockito.verify( userService, Mockito.never() ).saveAll( Mockito.anyList() );
+    }
+
+    @Test
+    @DisplayName("Deve retornar um erro BAD REQUEST ao importar uma lista com um item que não é um usuário.")
+    public void createBatchWithInvalidItemTest() throws Exception {
+        // Cenário
+        String user = new ObjectMapper().writeValueAsString( createAnUserDTO() );
+
+        // Execução e verificações: nenhum item após o inválido pode ser descartado em silêncio
+        for ( String invalid : Arrays.asList("null", "42") ) {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .post(USER_API.concat("/batch"))
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[" + user + "," + invalid + "," + user + "]");
+            mvc.perform(request)
+                    .andExpect( status().isBadRequest() )
+                    .andExpect( jsonPath("errors[0]").value("Cada item da lista deve ser um usuário.") )
+            ;
+        }
+        Mockito.verify( userService, Mockito.never() ).saveAll( Mockito.anyList() );
+    }
+
+    @Test
+    @DisplayName("Deve retornar um erro BAD REQUEST ao importar uma lista seguida de outro conteúdo.")
+    public void createBatchWithTrailingContentTest() throws Exception {
+        // Cenário
+        String json = new ObjectMapper().writeValueAsString( Arrays.asList( createAnUserDTO() ) );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json + " [" + json + "]");
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors[0]").value("O corpo da requisição deve conter apenas a lista de usuários.") )
+        ;
+        Mockito.verify( userService, Mockito.never() ).saveAll( Mockito.anyList() );
+    }
+
     @Test
     @DisplayName("Deve realizar uma pesquisa pelo id do usuário.")
     public void getUserByIdTest() throws Exception {
@@ -131,7 +235,161 @@ public class UserControllerTest {
             .andExpect( jsonPath("data.fullname").value(user.getFullname()) )
             .andExpect( jsonPath("data.email").value(user.getEmail()) )
             .andExpect( jsonPath("data.cpf").value(user.getCpf()) )
+            .andExpect( header().string("ETag", "\"1-0\"") )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve retornar NOT MODIFIED pelo ETag sem carregar o usuário.")
+    public void getUserNotModifiedTest() throws Exception {
+        // Cenário
+        BDDMockito.given( userService.getUserVersion(1l) ).willReturn( Optional.of(3l) );
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("/1"))
+                .header("If-None-Match", "\"1-3\"")
+                .accept(MediaType.APPLICATION_JSON);
+        // Verificações
+        mvc.perform(request)
+            .andExpect( status().isNotModified() )
+            .andExpect( header().string("ETag", "\"1-3\"") )
+            .andExpect( content().string("") )
+        ;
+        Mockito.verify( userService, Mockito.never() ).getUserById( Mockito.anyLong() );
+    }
+
+    @Test
+    @DisplayName("Deve retornar o usuário com o novo ETag quando a versão do cliente estiver desatualizada.")
+    public void getUserModifiedTest() throws Exception {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").version(4l).build();
+        BDDMockito.given( userService.getUserVersion(1l) ).willReturn( Optional.of(4l) );
+        BDDMockito.given( userService.getUserById(1l) ).willReturn( Optional.of(user) );
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("/1"))
+                .header("If-None-Match", "\"1-3\"")
+                .accept(MediaType.APPLICATION_JSON);
+        // Verificações
+        mvc.perform(request)
+            .andExpect( status().isOk() )
+            .andExpect( header().string("ETag", "\"1-4\"") )
+            .andExpect( jsonPath("data.version").value(4) )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar um usuário pelo cpf.")
+    public void getUserByCpfTest() throws Exception {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        BDDMockito.given( userService.getUserByCpf("547.374.910-04") ).willReturn( Optional.of(user) );
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("/by-cpf/547.374.910-04"))
+                .accept(MediaType.APPLICATION_JSON);
+        // Verificações
+        mvc.perform(request)
+            .andExpect( status().isOk() )
+            .andExpect( jsonPath("data.id").value(1) )
+            .andExpect( jsonPath("data.cpf").value("54737491004") )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar um usuário pelo email e retornar NOT FOUND quando não existir.")
+    public void getUserByEmailTest() throws Exception {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        BDDMockito.given( userService.getUserByEmail("Fulano@Email.com") ).willReturn( Optional.of(user) );
+        BDDMockito.given( userService.getUserByEmail("ciclano@email.com") ).willReturn( Optional.empty() );
+        // Execução e verificações
+        mvc.perform( MockMvcRequestBuilders.get(USER_API.concat("/by-email/Fulano@Email.com")).accept(MediaType.APPLICATION_JSON) )
+            .andExpect( status().isOk() )
+            .andExpect( jsonPath("data.email").value("fulano@email.com") )
+        ;
+        mvc.perform( MockMvcRequestBuilders.get(USER_API.concat("/by-email/ciclano@email.com")).accept(MediaType.APPLICATION_JSON) )
+            .andExpect( status().isNotFound() )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar vários usuários pelos ids mantendo a ordem e informando os não encontrados.")
+    public void getUsersByIdsTest() throws Exception {
+        // Cenário
+        Map<Long, User> found = new HashMap<>();
+        found.put( 3l, User.builder().id(3l).fullname("Ciclano").email("ciclano@email.com").cpf("11144477735").build() );
+        found.put( 1l, User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build() );
+        BDDMockito.given( userService.getUsersByIds( Mockito.anyCollection() ) ).willReturn( found );
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("?ids=3,2,1"))
+                .accept(MediaType.APPLICATION_JSON);
+        // Verificações
+        mvc.perform(request)
+            .andExpect( status().isOk() )
+            .andExpect( jsonPath("data.content", hasSize(2)) )
+            .andExpect( jsonPath("data.content[0].id").value(3) )
+            .andExpect( jsonPath("data.content[1].id").value(1) )
+            .andExpect( jsonPath("data.missing", hasSize(1)) )
+            .andExpect( jsonPath("data.missing[0]").value(2) )
+        ;
+        Mockito.verify( userService, Mockito.never() ).find( Mockito.any(User.class), Mockito.any(Pageable.class) );
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar vários usuários pelos ids informados no corpo da requisição.")
+    public void getUsersByIdsInBodyTest() throws Exception {
+        // Cenário
+        Map<Long, User> found = new HashMap<>();
+        found.put( 1l, User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build() );
+        BDDMockito.given( userService.getUsersByIds( Arrays.asList(2l, 1l) ) ).willReturn( found );
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API.concat("/by-ids"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[2,1]");
+        // Verificações
+        mvc.perform(request)
+            .andExpect( status().isOk() )
+            .andExpect( jsonPath("data.content", hasSize(1)) )
+            .andExpect( jsonPath("data.content[0].id").value(1) )
+            .andExpect( jsonPath("data.missing[0]").value(2) )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve retornar BAD REQUEST quando a lista de ids na query string não cabe na linha de requisição.")
+    public void getUsersByIdsAboveQueryLimitTest() throws Exception {
+        // Cenário
+        String ids = LongStream.rangeClosed(1, 301).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("?ids=" + ids))
+                .accept(MediaType.APPLICATION_JSON);
+        // Verificações
+        mvc.perform(request)
+            .andExpect( status().isBadRequest() )
+            .andExpect( jsonPath("errors[0]").value("Informe de 1 a 300 ids por requisição.") )
         ;
+        Mockito.verify( userService, Mockito.never() ).getUsersByIds( Mockito.anyCollection() );
+    }
+
+    @Test
+    @DisplayName("Deve retornar BAD REQUEST ao combinar a lista de ids com o cursor.")
+    public void getUsersByIdsAndCursorTest() throws Exception {
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("?ids=1,2&cursor="))
+                .accept(MediaType.APPLICATION_JSON);
+        // Verificações
+        mvc.perform(request)
+            .andExpect( status().isBadRequest() )
+            .andExpect( jsonPath("errors[0]").value("Informe a lista de ids ou o cursor, não os dois.") )
+        ;
+        Mockito.verify( userService, Mockito.never() ).getUsersByIds( Mockito.anyCollection() );
+        Mockito.verify( userService, Mockito.never() ).findByCursor( Mockito.any(), Mockito.any(), Mockito.anyInt() );
     }
 
     @Test
@@ -156,13 +414,13 @@ public class UserControllerTest {
     public void deleteUserByIdTest() throws Exception {
         // Cenário
         Long id = 1l;
-        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
-        BDDMockito.given( userService.getUserById(id) ).willReturn( Optional.of(user) );
+        BDDMockito.given( userService.deleteById(id) ).willReturn( true );
         // Execução
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.delete(USER_API.concat("/" + id)).accept(MediaType.APPLICATION_JSON);
         // Verificações
         mvc.perform( request )
             .andExpect( status().isAccepted() );
+        Mockito.verify( userService, Mockito.never() ).getUserById( Mockito.anyLong() );
     }
 
     @Test
@@ -170,7 +428,7 @@ public class UserControllerTest {
     public void deleteInexistentUserTest() throws Exception {
         // Cenário
         Long id = 1l;
-        BDDMockito.given( userService.getUserById(id) ).willReturn( Optional.empty() );
+        BDDMockito.given( userService.deleteById(id) ).willReturn( false );
         // Execução
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.delete(USER_API.concat("/" + id)).accept(MediaType.APPLICATION_JSON);
         // Verificações
@@ -178,6 +436,37 @@ public class UserControllerTest {
                 .andExpect( status().isNotFound() );
     }
 
+    @Test
+    @DisplayName("Deve remover vários usuários a partir de uma lista de ids.")
+    public void deleteUsersByIdsTest() throws Exception {
+        // Cenário
+        BDDMockito.given( userService.deleteAllById( Arrays.asList(1l, 2l, 3l) ) ).willReturn( 2 );
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.delete(USER_API.concat("?ids=1,2,3")).accept(MediaType.APPLICATION_JSON);
+        // Verificações
+        mvc.perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("data").value(2) );
+    }
+
+    @Test
+    @DisplayName("Deve remover vários usuários a partir de uma lista de ids no corpo da requisição.")
+    public void deleteUsersByIdsInBodyTest() throws Exception {
+        // Cenário
+        List<Long> ids = LongStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+        BDDMockito.given( userService.deleteAllById( ids ) ).willReturn( 1000 );
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API.concat("/delete"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content( new ObjectMapper().writeValueAsString(ids) );
+        // Verificações
+        mvc.perform( request )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("data").value(1000) );
+    }
+
     @Test
     @DisplayName("Deve alterar um usuário.")
     public void updateUserTest() throws Exception {
@@ -227,15 +516,134 @@ public class UserControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve alterar sem repassar a versão do usuário em cache quando o cliente não informa a versão.")
+    public void updateWithoutVersionTest() throws Exception {
+        // Cenário
+        Long id = 1l;
+        User cachedUser = User.builder().id(id).fullname("Fulano").email("fulano@email.com").cpf("54737491004").version(2l).build();
+        String json = new ObjectMapper().writeValueAsString( UserDTO.builder().fullname("Fulano alterado")
+                .email("fulano@email.com").cpf("54737491004").build() );
+        BDDMockito.given( this.userService.getUserById(id) ).willReturn( Optional.of(cachedUser) );
+        BDDMockito.given( this.userService.update( Mockito.any(User.class) ) ).willReturn( cachedUser );
+        // Execuções
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(USER_API.concat("/" + id))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isOk() );
+        Mockito.verify( this.userService ).update( Mockito.argThat( user -> user.getVersion() == null ) );
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de CONFLICT ao alterar com uma versão desatualizada.")
+    public void updateOutdatedVersionTest() throws Exception {
+        // Cenário
+        Long id = 1l;
+        User foundUser = User.builder().id(id).fullname("Fulano").email("fulano@email.com").cpf("54737491004").version(2l).build();
+        String json = new ObjectMapper().writeValueAsString( UserDTO.builder().fullname("Fulano alterado")
+                .email("fulano@email.com").cpf("54737491004").version(1l).build() );
+        BDDMockito.given( this.userService.getUserById(id) ).willReturn( Optional.of(foundUser) );
+        BDDMockito.given( this.userService.update( Mockito.any(User.class) ) )
+                .willThrow( new ObjectOptimisticLockingFailureException(User.class, id) );
+        // Execuções
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(USER_API.concat("/" + id))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isConflict() )
+                .andExpect( jsonPath("errors[0]").value("O usuário foi alterado por outra requisição.") );
+    }
+
+    @Test
+    @DisplayName("Deve alterar parcialmente um usuário sem recarregá-lo.")
+    public void patchUserTest() throws Exception {
+        // Cenário
+        Long id = 1l;
+        String json = new ObjectMapper().writeValueAsString( UserDTO.builder().email("fulanoalterado@email.com").version(0l).build() );
+        BDDMockito.given( this.userService.patch( Mockito.eq(id), Mockito.any(User.class) ) ).willReturn( true );
+        // Execuções
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(USER_API.concat("/" + id))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isNoContent() );
+        Mockito.verify( this.userService, Mockito.never() ).getUserById( Mockito.anyLong() );
+        Mockito.verify( this.userService ).patch( id, User.builder().email("fulanoalterado@email.com").version(0l).build() );
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de NOT FOUND ao alterar parcialmente um usuário inexistente.")
+    public void patchInexistentUserTest() throws Exception {
+        // Cenário
+        String json = new ObjectMapper().writeValueAsString( UserDTO.builder().fullname("Fulano alterado").build() );
+        BDDMockito.given( this.userService.patch( Mockito.anyLong(), Mockito.any(User.class) ) ).willReturn( false );
+        // Execuções
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(USER_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isNotFound() );
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de CONFLICT ao alterar parcialmente com uma versão desatualizada.")
+    public void patchOutdatedVersionTest() throws Exception {
+        // Cenário
+        String json = new ObjectMapper().writeValueAsString( UserDTO.builder().fullname("Fulano alterado").version(1l).build() );
+        BDDMockito.given( this.userService.patch( Mockito.anyLong(), Mockito.any(User.class) ) )
+                .willThrow( new OptimisticLockingFailureException("O usuário foi alterado por outra requisição.") );
+        // Execuções
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(USER_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isConflict() )
+                .andExpect( jsonPath("errors", hasSize(1)) );
+    }
+
+    @Test
+    @DisplayName("Deve retornar um erro BAD REQUEST ao alterar parcialmente com cpf inválido.")
+    public void patchInvalidCpfTest() throws Exception {
+        // Cenário
+        String json = new ObjectMapper().writeValueAsString( UserDTO.builder().cpf("12345678900").build() );
+        // Execuções
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(USER_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors", hasSize(1)) );
+        Mockito.verify( this.userService, Mockito.never() ).patch( Mockito.anyLong(), Mockito.any(User.class) );
+    }
+
     @Test
     @DisplayName("Deve listar dados de todos os usuários de acordo com os parâmetros informados.")
     public void getByParamsTest() throws Exception {
         // Cenário
         User user = User.builder().fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
         String parameters = String.format("?fullname=%s&email=%s&cpf=%s&page=0&size=20", user.getFullname(), user.getEmail(), user.getCpf());
-        List<User> list = Arrays.asList( user );
+        List<UserSummary> list = Arrays.asList( UserSummary.builder().fullname("Fulano").email("fulano@email.com").cpf("54737491004").build() );
         BDDMockito.given( userService.find( Mockito.any(User.class), Mockito.any(Pageable.class) )  )
-                .willReturn( new PageImpl<User>( list, PageRequest.of(0, 20), 1 ) );
+                .willReturn( new PageImpl<UserSummary>( list, PageRequest.of(0, 20), 1 ) );
 
         // Execução
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -247,10 +655,174 @@ public class UserControllerTest {
                 .andExpect( status().isOk() )
                 .andExpect( jsonPath("data.content", hasSize(1)) )
                 .andExpect( jsonPath("data.totalElements").value(1) )
-                .andExpect( jsonPath("data.pageable.pageSize").value(20) )
-                .andExpect( jsonPath("data.pageable.pageNumber").value(0) )
+                .andExpect( jsonPath("data.totalPages").value(1) )
+                .andExpect( jsonPath("data.size").value(20) )
+                .andExpect( jsonPath("data.number").value(0) )
+                .andExpect( jsonPath("data.pageable").doesNotExist() )
+                .andExpect( jsonPath("errors", hasSize(0)) )
+                .andExpect( header().exists("ETag") )
+        ;
+
+    }
+
+    @Test
+    @DisplayName("Deve retornar NOT MODIFIED na pesquisa quando a página não foi alterada.")
+    public void getByParamsNotModifiedTest() throws Exception {
+        // Cenário
+        UserSummary user = UserSummary.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").version(0l).build();
+        BDDMockito.given( userService.find( Mockito.any(User.class), Mockito.any(Pageable.class) )  )
+                .willReturn( new PageImpl<UserSummary>( Arrays.asList( user ), PageRequest.of(0, 20), 1 ) );
+        String eTag = mvc.perform( MockMvcRequestBuilders.get(USER_API.concat("?fullname=Fulano")) )
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("?fullname=Fulano"))
+                .header("If-None-Match", eTag)
+                .accept(MediaType.APPLICATION_JSON);
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isNotModified() )
+                .andExpect( content().string("") )
+        ;
+        // Com o usuário alterado a página volta a ser enviada
+        UserSummary changed = UserSummary.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").version(1l).build();
+        BDDMockito.given( userService.find( Mockito.any(User.class), Mockito.any(Pageable.class) )  )
+                .willReturn( new PageImpl<UserSummary>( Arrays.asList( changed ), PageRequest.of(0, 20), 1 ) );
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve listar usuários sem o total quando count=false.")
+    public void getByParamsWithoutCountTest() throws Exception {
+        // Cenário
+        UserSummary user = UserSummary.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        BDDMockito.given( userService.findSlice( Mockito.any(User.class), Mockito.any(Pageable.class) ) )
+                .willReturn( new SliceImpl<UserSummary>( Arrays.asList( user ), PageRequest.of(0, 20), true ) );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("?fullname=Fulano&page=0&size=20&count=false"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("data.content", hasSize(1)) )
+                .andExpect( jsonPath("data.hasNext").value(true) )
+                .andExpect( jsonPath("data.totalElements").doesNotExist() )
+        ;
+        Mockito.verify( userService, Mockito.never() ).find( Mockito.any(User.class), Mockito.any(Pageable.class) );
+    }
+
+    @Test
+    @DisplayName("Deve listar usuários com paginação por cursor retornando o próximo cursor.")
+    public void getByCursorTest() throws Exception {
+        // Cenário
+        UserSummary user = UserSummary.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        BDDMockito.given( userService.findByCursor( Mockito.any(User.class), Mockito.any(UserCursor.class), Mockito.anyInt() ) )
+                .willReturn( new CursorPage<>( Arrays.asList(user), 1, "proximo" ) );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("?fullname=Fulano&cursor=&size=1&sort=fullname,desc"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("data.content", hasSize(1)) )
+                .andExpect( jsonPath("data.size").value(1) )
+                .andExpect( jsonPath("data.nextCursor").value("proximo") )
+                .andExpect( jsonPath("data.totalElements").doesNotExist() )
+        ;
+        Mockito.verify( userService, Mockito.never() ).find( Mockito.any(User.class), Mockito.any(Pageable.class) );
+    }
+
+    @Test
+    @DisplayName("Deve retornar um erro BAD REQUEST ao informar um cursor inválido.")
+    public void getByInvalidCursorTest() throws Exception {
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("?cursor=invalido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors", hasSize(1)) )
         ;
+    }
+
+    @Test
+    @DisplayName("Deve exportar os usuários pesquisados em NDJSON, um por linha.")
+    public void exportNdjsonTest() throws Exception {
+        // Cenário
+        mockExport( UserSummary.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build(),
+                UserSummary.builder().id(2l).fullname("Ciclano").email("ciclano@email.com").cpf("11144477735").build() );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("/export?fullname=ano"));
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( content().contentTypeCompatibleWith("application/x-ndjson") )
+                .andExpect( content().string(containsString("\"id\":1,\"fullname\":\"Fulano\"")) )
+                .andExpect( content().string(containsString("}\n{\"id\":2,")) )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve exportar os usuários pesquisados em CSV.")
+    public void exportCsvTest() throws Exception {
+        // Cenário
+        mockExport( UserSummary.builder().id(1l).fullname("Fulano, da Silva").email("fulano@email.com").cpf("54737491004").build() );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(USER_API.concat("/export?format=csv"));
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( content().contentTypeCompatibleWith("text/csv") )
+                .andExpect( content().string("id,fullname,cpf,email\n1,\"Fulano, da Silva\",54737491004,fulano@email.com\n") )
+        ;
+    }
+
+    @Test
+    @DisplayName("Deve retornar SERVICE UNAVAILABLE quando o serviço está sobrecarregado.")
+    public void createUserOverloadedTest() throws Exception {
+        // Cenário
+        String json = new ObjectMapper().writeValueAsString(createAnUserDTO());
+        BDDMockito.given( userService.save(Mockito.any(User.class)) )
+                .willThrow( new ServiceUnavailableException("Servidor sobrecarregado, tente novamente.") );
+
+        // Execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(USER_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // Verificações
+        mvc.perform(request)
+                .andExpect( status().isServiceUnavailable() )
+        ;
+    }
 
+    @SuppressWarnings("unchecked")
+    private void mockExport(UserSummary... users) {
+        Mockito.doAnswer( invocation -> {
+            Consumer<UserSummary> consumer = invocation.getArgument(1);
+            Arrays.stream(users).forEach(consumer);
+            return null;
+        } ).when( userService ).export( Mockito.any(User.class), Mockito.any(Consumer.class) );
     }
 
     public UserDTO createAnUserDTO() {
@@ -0,0 +1,136 @@
+package br.com.josehamilton.crud.api.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        // Duas instâncias H2 independentes, cada uma identificada pelo próprio nome
+        this.primary = createDatabase("primary");
+        this.replica = createDatabase("replica");
+        DataSource dataSource = new LazyConnectionDataSourceProxy( routing(this.primary, this.replica) );
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readWrite = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReadYourWritesContext.clear();
+        this.primary.shutdown();
+        this.replica.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve enviar transações somente leitura para a réplica e as demais para o principal.")
+    public void routeByTransactionReadOnly() {
+        String readNode = this.readOnly.execute( status -> this.node() );
+        String writeNode = this.readWrite.execute( status -> this.node() );
+        assertThat( readNode ).isEqualTo("replica");
+        assertThat( writeNode ).isEqualTo("primary");
+        // Fora de transação vai para o principal
+        assertThat( this.node() ).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Deve manter as leituras do cliente no principal logo após uma escrita dele.")
+    public void readYourWrites() {
+        // Cenário
+        ReadYourWritesContext.setClient("cliente-a");
+        this.readWrite.execute( status -> this.jdbcTemplate.update("update node set name = name") );
+        // Execução e verificações
+        String writerNode = this.readOnly.execute( status -> this.node() );
+        ReadYourWritesContext.setClient("cliente-b");
+        String otherNode = this.readOnly.execute( status -> this.node() );
+        assertThat( writerNode ).isEqualTo("primary");
+        assertThat( otherNode ).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Não deve manter no principal as leituras do cliente cuja escrita foi desfeita.")
+    public void rollbackDoesNotStick() {
+        // Cenário
+        ReadYourWritesContext.setClient("cliente-a");
+        this.readWrite.execute( status -> {
+            this.jdbcTemplate.update("update node set name = name");
+            status.setRollbackOnly();
+            return null;
+        });
+        // Execução
+        String node = this.readOnly.execute( status -> this.node() );
+        // Verificações
+        assertThat( node ).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Deve voltar a ler da réplica quando a janela após a escrita expirar.")
+    public void stickyWindowExpires() throws InterruptedException {
+        // Cenário
+        DataSource dataSource = new LazyConnectionDataSourceProxy( routing(this.primary, this.replica, 50) );
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        ReadYourWritesContext.setClient("cliente-a");
+        new TransactionTemplate(transactionManager).execute( status -> jdbcTemplate.update("update node set name = name") );
+        // Execução
+        Thread.sleep(200);
+        // Verificações
+        String node = readOnly.execute( status -> jdbcTemplate.queryForObject("select name from node", String.class) );
+        assertThat( node ).isEqualTo("replica");
+    }
+
+    private String node() {
+        return this.jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static ReadWriteRoutingDataSource routing(DataSource primary, DataSource replica) {
+        return routing(primary, replica, 60_000);
+    }
+
+    private static ReadWriteRoutingDataSource routing(DataSource primary, DataSource replica, long stickyWindowMillis) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica,
+                new ReadYourWritesContext(stickyWindowMillis));
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static EmbeddedDatabase createDatabase(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + "-" + System.nanoTime())
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table node (name varchar(20))");
+        jdbcTemplate.update("insert into node (name) values (?)", name);
+        return database;
+    }
+
+}
@@ -0,0 +1,118 @@
+package br.com.josehamilton.crud.api.datasource;
+
+import br.com.josehamilton.crud.api.config.CacheConfig;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "user.datasource.routing.enabled=true",
+        "spring.jpa.open-in-view=false",
+        "user.datasource.primary.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "user.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+public class ReadWriteRoutingRequestTest {
+
+    private static final String INSERT_USER = "insert into users (id, fullname, cpf, email, version, fullname_normalized, email_normalized) "
+            + "values (1000, 'Fulano', '54737491004', 'fulano@email.com', 0, 'fulano', 'fulano@email.com')";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    private static final DataSource PRIMARY = new DriverManagerDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1", "sa", "");
+
+    private static final DataSource REPLICA = new DriverManagerDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "sa", "");
+
+    static {
+        // A réplica recebe o mesmo schema antes da aplicação subir; o Flyway da aplicação migra apenas o principal
+        Flyway.configure().dataSource(REPLICA).locations("classpath:db/migration/h2").load().migrate();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        for ( DataSource dataSource : new DataSource[] { PRIMARY, REPLICA } ) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.update("delete from user_trigram");
+            jdbcTemplate.update("delete from users");
+            jdbcTemplate.update(INSERT_USER);
+        }
+        this.cacheManager.getCache(CacheConfig.USERS).clear();
+        this.cacheManager.getCache(CacheConfig.USER_KEYS).clear();
+    }
+
+    @Test
+    @DisplayName("Deve gravar no principal a alteração feita após a leitura na réplica, na mesma requisição.")
+    public void readThenWriteInOneRequest() throws Exception {
+        // Execução: o PUT lê o usuário (transação somente leitura) e depois o altera
+        this.mvc.perform( MockMvcRequestBuilders.put("/api/users/1000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fullname\":\"Ciclano\",\"email\":\"fulano@email.com\",\"cpf\":\"54737491004\"}") )
+                .andExpect( status().isOk() );
+        // Verificações
+        assertThat( fullname(PRIMARY) ).isEqualTo("Ciclano");
+        assertThat( fullname(REPLICA) ).isEqualTo("Fulano");
+    }
+
+    @Test
+    @DisplayName("Deve ler do cache o usuário alterado por outro cliente enquanto a réplica está atrasada.")
+    public void readPatchedUserWithLaggingReplica() throws Exception {
+        // Cenário: o leitor coloca no cache o usuário lido da réplica
+        this.mvc.perform( MockMvcRequestBuilders.get("/api/users/1000").header(ClientIdFilter.CLIENT_ID_HEADER, "leitor") )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("data.fullname").value("Fulano") );
+        // Execução: outro cliente altera o usuário; a réplica não recebe a alteração
+        this.mvc.perform( MockMvcRequestBuilders.patch("/api/users/1000")
+                        .header(ClientIdFilter.CLIENT_ID_HEADER, "escritor")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fullname\":\"Ciclano\"}") )
+                .andExpect( status().isNoContent() );
+        // Verificações: a próxima leitura do leitor (que não fica preso ao principal) já traz a alteração
+        this.mvc.perform( MockMvcRequestBuilders.get("/api/users/1000").header(ClientIdFilter.CLIENT_ID_HEADER, "leitor") )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("data.fullname").value("Ciclano") );
+        assertThat( fullname(REPLICA) ).isEqualTo("Fulano");
+    }
+
+    @Test
+    @DisplayName("Não deve ler do cache ou da réplica atrasada o usuário excluído por outro cliente.")
+    public void readDeletedUserWithLaggingReplica() throws Exception {
+        // Cenário: o leitor coloca no cache o usuário lido da réplica
+        this.mvc.perform( MockMvcRequestBuilders.get("/api/users/1000").header(ClientIdFilter.CLIENT_ID_HEADER, "leitor") )
+                .andExpect( status().isOk() );
+        // Execução: outro cliente exclui o usuário; a réplica continua com a linha
+        this.mvc.perform( MockMvcRequestBuilders.delete("/api/users/1000").header(ClientIdFilter.CLIENT_ID_HEADER, "escritor") )
+                .andExpect( status().isAccepted() );
+        // Verificações
+        this.mvc.perform( MockMvcRequestBuilders.get("/api/users/1000").header(ClientIdFilter.CLIENT_ID_HEADER, "leitor") )
+                .andExpect( status().isNotFound() );
+        this.mvc.perform( MockMvcRequestBuilders.get("/api/users/by-email/fulano@email.com")
+                        .header(ClientIdFilter.CLIENT_ID_HEADER, "leitor") )
+                .andExpect( status().isNotFound() );
+        assertThat( fullname(REPLICA) ).isEqualTo("Fulano");
+    }
+
+    private static String fullname(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("select fullname from users where id = 1000", String.class);
+    }
+
+}
@@ -0,0 +1,133 @@
+package br.com.josehamilton.crud.api.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitFilterTest {
+
+    @Test
+    @DisplayName("Deve responder 503 com Retry-After quando o orçamento de leitura estiver em uso, sem afetar as escritas.")
+    public void rejectAboveLimit() throws Exception {
+        // Cenário
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GradientLimit readLimit = new GradientLimit(1, 1, 10, 2.0, 0.9);
+        GradientLimit writeLimit = new GradientLimit(1, 1, 10, 2.0, 0.9);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimit, writeLimit, 2, registry);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        // Execução: uma leitura em andamento ocupa o único lugar enquanto chegam outra leitura e uma escrita
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/1"), new MockHttpServletResponse(), (req, res) -> {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/users/2"), rejected, (r, s) -> {});
+            filter.doFilter(new MockHttpServletRequest("POST", "/api/users"), written, (r, s) -> {});
+        });
+        // Verificações
+        assertThat( rejected.getStatus() ).isEqualTo(503);
+        assertThat( rejected.getHeader("Retry-After") ).isEqualTo("2");
+        assertThat( rejected.getContentAsString() ).contains("Servidor sobrecarregado");
+        assertThat( written.getStatus() ).isEqualTo(200);
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "read").tag("result", "rejected").counter().count() ).isEqualTo(1);
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "read").tag("result", "accepted").counter().count() ).isEqualTo(1);
+        assertThat( registry.get("user.api.concurrency.in.flight").tag("budget", "read").gauge().value() ).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve manter orçamentos independentes: escritas esgotadas não recusam leituras e vice-versa.")
+    public void independentBudgets() throws Exception {
+        // Cenário
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GradientLimit readLimit = new GradientLimit(1, 1, 1, 2.0, 0.9);
+        GradientLimit writeLimit = new GradientLimit(1, 1, 1, 2.0, 0.9);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimit, writeLimit, 1, registry);
+        MockHttpServletResponse readDuringWrite = new MockHttpServletResponse();
+        MockHttpServletResponse writeDuringWrite = new MockHttpServletResponse();
+        MockHttpServletResponse writeDuringRead = new MockHttpServletResponse();
+        MockHttpServletResponse readDuringRead = new MockHttpServletResponse();
+        // Execução: uma escrita em andamento ocupa todo o orçamento de escrita
+        filter.doFilter(new MockHttpServletRequest("PUT", "/api/users/1"), new MockHttpServletResponse(), (req, res) -> {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/users/1"), readDuringWrite, (r, s) -> {});
+            filter.doFilter(new MockHttpServletRequest("DELETE", "/api/users/2"), writeDuringWrite, (r, s) -> {});
+        });
+        // E uma leitura em andamento ocupa todo o orçamento de leitura
+        filter.doFilter(new MockHttpServletRequest("HEAD", "/api/users/1"), new MockHttpServletResponse(), (req, res) -> {
+            filter.doFilter(new MockHttpServletRequest("POST", "/api/users"), writeDuringRead, (r, s) -> {});
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), readDuringRead, (r, s) -> {});
+        });
+        // Verificações
+        assertThat( readDuringWrite.getStatus() ).isEqualTo(200);
+        assertThat( writeDuringWrite.getStatus() ).isEqualTo(503);
+        assertThat( writeDuringRead.getStatus() ).isEqualTo(200);
+        assertThat( readDuringRead.getStatus() ).isEqualTo(503);
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "write").tag("result", "rejected").counter().count() ).isEqualTo(1);
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "read").tag("result", "rejected").counter().count() ).isEqualTo(1);
+        assertThat( readLimit.getInFlight() ).isZero();
+        assertThat( writeLimit.getInFlight() ).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite quando a API responder 503.")
+    public void decreaseOnServiceUnavailable() throws Exception {
+        // Cenário
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GradientLimit readLimit = new GradientLimit(10, 1, 10, 2.0, 0.5);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimit, new GradientLimit(1, 1, 1, 2.0, 0.5), 1, registry);
+        // Execução
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/1"), new MockHttpServletResponse(),
+                (req, res) -> ((HttpServletResponse) res).setStatus(503));
+        // Verificações
+        assertThat( readLimit.getLimit() ).isEqualTo(5);
+        assertThat( registry.get("user.api.concurrency.limit").tag("budget", "read").gauge().value() ).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve contar a pesquisa por ids no corpo do POST como leitura.")
+    public void postByIdsUsesReadBudget() throws Exception {
+        // Cenário
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new GradientLimit(1, 1, 1, 2.0, 0.9), new GradientLimit(1, 1, 1, 2.0, 0.9), 1, registry);
+        // Execução
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/users/by-ids"), new MockHttpServletResponse(), (req, res) -> {});
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/users/delete"), new MockHttpServletResponse(), (req, res) -> {});
+        // Verificações
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "read").tag("result", "accepted").counter().count() ).isEqualTo(1);
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "write").tag("result", "accepted").counter().count() ).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve reconhecer as rotas pelo caminho dentro da aplicação, com context path e barra final.")
+    public void matchRoutesByPath() throws Exception {
+        // Cenário
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GradientLimit readLimit = new GradientLimit(1, 1, 1, 2.0, 0.9);
+        GradientLimit writeLimit = new GradientLimit(1, 1, 1, 2.0, 0.9);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(readLimit, writeLimit, 1, registry);
+        // Execução: exportação e importação em lote ocupam vaga mas não são medidas
+        filter.doFilter(request("GET", "/app", "/app/api/users/export/"), new MockHttpServletResponse(), (req, res) -> {});
+        filter.doFilter(request("POST", "/app", "/app/api/users/batch;jsessionid=1"), new MockHttpServletResponse(), (req, res) -> {});
+        long readBaseline = readLimit.getBaselineLatency();
+        long writeBaseline = writeLimit.getBaselineLatency();
+        // A pesquisa por ids no corpo é leitura; um caminho que apenas termina igual não é essa rota
+        filter.doFilter(request("POST", "/app", "/app/api/users/by-ids/"), new MockHttpServletResponse(), (req, res) -> {});
+        filter.doFilter(request("POST", "", "/api/other/by-ids"), new MockHttpServletResponse(), (req, res) -> {});
+        // Verificações
+        assertThat( readBaseline ).isZero();
+        assertThat( writeBaseline ).isZero();
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "read").tag("result", "accepted").counter().count() ).isEqualTo(2);
+        assertThat( registry.get("user.api.concurrency.requests").tag("budget", "write").tag("result", "accepted").counter().count() ).isEqualTo(2);
+        assertThat( readLimit.getBaselineLatency() ).isPositive();
+        assertThat( writeLimit.getBaselineLatency() ).isPositive();
+    }
+
+    private static MockHttpServletRequest request(String method, String contextPath, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContextPath(contextPath);
+        return request;
+    }
+
+}
@@ -0,0 +1,96 @@
+package br.com.josehamilton.crud.api.limiter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GradientLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    @DisplayName("Deve recusar vagas acima do limite atual.")
+    public void tryAcquireUpToLimit() {
+        GradientLimit limit = new GradientLimit(2, 1, 10, 2.0, 0.5);
+        assertThat( limit.tryAcquire() ).isTrue();
+        assertThat( limit.tryAcquire() ).isTrue();
+        assertThat( limit.tryAcquire() ).isFalse();
+        limit.onIgnore();
+        assertThat( limit.getInFlight() ).isEqualTo(1);
+        assertThat( limit.tryAcquire() ).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve aumentar o limite até o máximo enquanto a latência acompanha a linha de base.")
+    public void increaseWithSteadyLatency() {
+        GradientLimit limit = new GradientLimit(2, 1, 20, 2.0, 0.5);
+        for ( int i = 0; i < 100; i++ ) {
+            fullRound(limit, FAST);
+        }
+        // Cresce até o máximo e não passa dele
+        assertThat( limit.getLimit() ).isEqualTo(20);
+        assertThat( limit.getBaselineLatency() ).isEqualTo(FAST);
+        assertThat( limit.getInFlight() ).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite quando a latência recente se afasta da linha de base medida.")
+    public void decreaseWhenLatencyRises() {
+        GradientLimit limit = new GradientLimit(20, 2, 20, 2.0, 0.5);
+        for ( int i = 0; i < 50; i++ ) {
+            fullRound(limit, FAST);
+        }
+        // Execução: a latência passa a ser dez vezes a linha de base
+        for ( int i = 0; i < 5; i++ ) {
+            fullRound(limit, SLOW);
+        }
+        // Verificações
+        assertThat( limit.getLimit() ).isLessThan(10).isGreaterThanOrEqualTo(2);
+        assertThat( limit.getBaselineLatency() ).isLessThan(SLOW);
+    }
+
+    @Test
+    @DisplayName("Não deve ajustar o limite com menos da metade dele em uso.")
+    public void keepLimitWhenUnderused() {
+        GradientLimit limit = new GradientLimit(10, 1, 20, 2.0, 0.5);
+        for ( int i = 0; i < 50; i++ ) {
+            limit.tryAcquire();
+            limit.onSuccess(i < 25 ? FAST : SLOW);
+        }
+        assertThat( limit.getLimit() ).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite uma vez por rajada de respostas recusadas.")
+    public void backoffOnDropped() throws Exception {
+        GradientLimit limit = new GradientLimit(8, 1, 10, 2.0, 0.5);
+        for ( int i = 0; i < 3; i++ ) {
+            limit.tryAcquire();
+        }
+        limit.onDropped();
+        limit.onDropped();
+        assertThat( limit.getLimit() ).isEqualTo(4);
+        // Passado o intervalo, uma nova recusa volta a reduzir
+        Thread.sleep(5);
+        limit.onDropped();
+        assertThat( limit.getLimit() ).isEqualTo(2);
+        assertThat( limit.getInFlight() ).isZero();
+    }
+
+    private static void fullRound(GradientLimit limit, long latencyNanos) {
+        // Ocupa todas as vagas e conclui cada uma com a latência informada
+        int acquired = 0;
+        while ( limit.tryAcquire() ) {
+            acquired++;
+        }
+        for ( int i = 0; i < acquired; i++ ) {
+            limit.onSuccess(latencyNanos);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package br.com.josehamilton.crud.api.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AccessLogFilterTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("br.com.josehamilton.crud.api.access");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    public void setUp() {
+        this.appender.start();
+        this.logger.addAppender(this.appender);
+        this.logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.logger.detachAppender(this.appender);
+        this.logger.setLevel(null);
+    }
+
+    @Test
+    @DisplayName("Deve registrar apenas a fração amostrada das requisições bem sucedidas.")
+    public void sampleSuccessfulRequests() throws Exception {
+        // Execução
+        new AccessLogFilter(0).doFilter(new MockHttpServletRequest("GET", "/api/users/1"), new MockHttpServletResponse(), (req, res) -> {});
+        new AccessLogFilter(1).doFilter(new MockHttpServletRequest("GET", "/api/users/2"), new MockHttpServletResponse(), (req, res) -> {});
+        // Verificações
+        assertThat( this.appender.list ).hasSize(1);
+        assertThat( this.appender.list.get(0).getLevel() ).isEqualTo(Level.INFO);
+        assertThat( this.appender.list.get(0).getFormattedMessage() ).contains("GET /api/users/2").contains("outcome=200");
+    }
+
+    @Test
+    @DisplayName("Deve registrar sempre as respostas de erro, mesmo sem amostragem.")
+    public void alwaysLogErrorResponses() throws Exception {
+        // Execução
+        AccessLogFilter filter = new AccessLogFilter(0);
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/1"), new MockHttpServletResponse(),
+                (req, res) -> ((HttpServletResponse) res).setStatus(404));
+        filter.doFilter(new MockHttpServletRequest("PUT", "/api/users/1"), new MockHttpServletResponse(),
+                (req, res) -> ((HttpServletResponse) res).setStatus(503));
+        // Verificações
+        assertThat( this.appender.list ).extracting(ILoggingEvent::getLevel).containsExactly(Level.WARN, Level.ERROR);
+        assertThat( this.appender.list.get(1).getFormattedMessage() ).contains("PUT /api/users/1").contains("outcome=503");
+    }
+
+    @Test
+    @DisplayName("Deve registrar a exceção não tratada com a pilha completa e repassá-la.")
+    public void logUnhandledException() {
+        // Execução
+        Throwable throwable = Assertions.catchThrowable( () -> new AccessLogFilter(0).doFilter(
+                new MockHttpServletRequest("GET", "/api/users/1"), new MockHttpServletResponse(),
+                (req, res) -> { throw new IllegalStateException("falha"); }) );
+        // Verificações
+        assertThat( throwable ).isInstanceOf(IllegalStateException.class);
+        assertThat( this.appender.list ).hasSize(1);
+        assertThat( this.appender.list.get(0).getLevel() ).isEqualTo(Level.ERROR);
+        assertThat( this.appender.list.get(0).getFormattedMessage() ).contains("outcome=exception");
+        assertThat( this.appender.list.get(0).getThrowableProxy().getMessage() ).isEqualTo("falha");
+    }
+
+}
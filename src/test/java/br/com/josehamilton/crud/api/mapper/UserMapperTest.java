@@ -0,0 +1,51 @@
+package br.com.josehamilton.crud.api.mapper;
+
+import br.com.josehamilton.crud.api.dtos.UserDTO;
+import br.com.josehamilton.crud.api.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UserMapperTest {
+
+    private final UserMapper userMapper = new UserMapper();
+
+    @Test
+    @DisplayName("Deve mapear um usuário para o dto.")
+    public void toDtoTest() {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").version(2l).build();
+        // Execução
+        UserDTO dto = this.userMapper.toDto(user);
+        // Verificações
+        assertThat( dto.getId() ).isEqualTo( user.getId() );
+        assertThat( dto.getFullname() ).isEqualTo( user.getFullname() );
+        assertThat( dto.getEmail() ).isEqualTo( user.getEmail() );
+        assertThat( dto.getCpf() ).isEqualTo( user.getCpf() );
+        assertThat( dto.getVersion() ).isEqualTo( user.getVersion() );
+    }
+
+    @Test
+    @DisplayName("Deve mapear um dto para o usuário.")
+    public void toEntityTest() {
+        // Cenário
+        UserDTO dto = UserDTO.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        // Execução
+        User user = this.userMapper.toEntity(dto);
+        // Verificações
+        assertThat( user.getId() ).isEqualTo( dto.getId() );
+        assertThat( user.getFullname() ).isEqualTo( dto.getFullname() );
+        assertThat( user.getEmail() ).isEqualTo( dto.getEmail() );
+        assertThat( user.getCpf() ).isEqualTo( dto.getCpf() );
+    }
+
+    @Test
+    @DisplayName("Deve dar erro ao mapear um usuário nulo.")
+    public void toDtoNullUserTest() {
+        // Execução e verificação
+        assertThrows( IllegalArgumentException.class, () -> this.userMapper.toDto( (User) null ) );
+    }
+
+}
@@ -0,0 +1,36 @@
+package br.com.josehamilton.crud.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCountFilterTest {
+
+    @Test
+    @DisplayName("Deve registrar a quantidade de comandos SQL executados na requisição pelo padrão da rota.")
+    public void recordQueriesPerRequest() throws Exception {
+        // Cenário
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryCounter inspector = new QueryCounter();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        // Execução
+        new QueryCountFilter(registry).doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            inspector.inspect("select * from user where id = ?");
+            inspector.inspect("select count(*) from user");
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/users/{id}");
+        });
+        // Fora da requisição nada é contado
+        inspector.inspect("select 1");
+        // Verificações
+        DistributionSummary summary = registry.get("user.db.queries").tag("uri", "/api/users/{id}").summary();
+        assertThat( summary.count() ).isEqualTo(1);
+        assertThat( summary.totalAmount() ).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,54 @@
+package br.com.josehamilton.crud.api.repository;
+
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.service.UserService;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sobe a aplicação com o perfil h2file em um arquivo novo: o schema vem só das migrações do Flyway
+// e o Hibernate valida o mapeamento (ddl-auto=validate) antes da gravação e da leitura
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:file:./target/h2file-test/users;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("h2file")
+public class H2FileProfileTest {
+
+    static {
+        FileSystemUtils.deleteRecursively( new File("target/h2file-test") );
+    }
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    UserService userService;
+
+    @Test
+    @DisplayName("Deve aplicar as migrações e gravar e pesquisar um usuário no banco em arquivo.")
+    public void migrateSaveAndFind() {
+        // Cenário
+        User user = User.builder().fullname("Fulano").email("Fulano@Email.com").cpf("547.374.910-04").build();
+        // Execução
+        User savedUser = this.userService.save( user );
+        Optional<User> foundUser = this.userService.getUserByEmail("fulano@email.com");
+        // Verificações
+        assertThat( Arrays.stream( this.flyway.info().applied() ).map( MigrationInfo::getVersion ).map( Object::toString ) )
+                .containsExactly("1", "2");
+        assertThat( savedUser.getId() ).isNotNull();
+        assertThat( foundUser ).hasValueSatisfying( found -> {
+            assertThat( found.getId() ).isEqualTo( savedUser.getId() );
+            assertThat( found.getCpf() ).isEqualTo("54737491004");
+        } );
+    }
+
+}
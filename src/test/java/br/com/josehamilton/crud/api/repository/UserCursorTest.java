@@ -0,0 +1,46 @@
+package br.com.josehamilton.crud.api.repository;
+
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.exception.BusinessException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UserCursorTest {
+
+    @Test
+    @DisplayName("Deve manter a ordenação e a posição ao codificar e decodificar o cursor.")
+    public void encodeAndDecodeTest() {
+        // Cenário
+        UserSummary last = UserSummary.builder().id(10l).fullname("Fulano | de Tal").email("fulano@email.com").cpf("54737491004").build();
+        UserCursor cursor = UserCursor.start("fullname,desc").next(last);
+        // Execução
+        UserCursor decoded = UserCursor.decode( cursor.encode() );
+        // Verificações
+        assertThat( decoded.encode() ).isEqualTo( cursor.encode() );
+        assertThat( decoded.toSort() ).isEqualTo( Sort.by(Sort.Direction.DESC, "fullname", "id") );
+        assertThat( decoded.toSpecification() ).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve iniciar sem filtro de posição na primeira página.")
+    public void startTest() {
+        // Execução
+        UserCursor cursor = UserCursor.start("id");
+        // Verificações
+        assertThat( cursor.toSpecification() ).isNull();
+        assertThat( cursor.toSort() ).isEqualTo( Sort.by(Sort.Direction.ASC, "id") );
+    }
+
+    @Test
+    @DisplayName("Deve dar erro ao decodificar um cursor inválido ou ordenar por campo inexistente.")
+    public void invalidCursorTest() {
+        // Execução e verificações
+        assertThrows( BusinessException.class, () -> UserCursor.decode("invalido") );
+        assertThrows( BusinessException.class, () -> UserCursor.start("senha") );
+    }
+
+}
@@ -1,15 +1,24 @@
 package br.com.josehamilton.crud.api.repository;
 
 import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
+import br.com.josehamilton.crud.api.entity.UserTrigram;
+import br.com.josehamilton.crud.api.utils.TextNormalizer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -61,6 +70,104 @@ public class UserRepositoryTest {
         assertThat( exists ).isTrue();
     }
 
+    @Test
+    @DisplayName("Deve retornar em uma única consulta os emails e cpfs já cadastrados.")
+    public void findExistingEmailsAndCpfsTest() {
+        // Cenário
+        createAndPersistUser();
+        // Execução
+        List<String> emails = this.userRepository.findExistingEmails( Arrays.asList("fulano@email.com", "ciclano@email.com") );
+        List<String> cpfs = this.userRepository.findExistingCpfs( Arrays.asList("54737491004", "11144477735") );
+        // Verificações
+        assertThat( emails ).containsExactly("fulano@email.com");
+        assertThat( cpfs ).containsExactly("54737491004");
+    }
+
+    @Test
+    @DisplayName("Deve retornar em uma única consulta o usuário que já utiliza o email ou o cpf.")
+    public void findByEmailOrCpfTest() {
+        // Cenário
+        User user = createAndPersistUser();
+        // Execução
+        List<User> byEmail = this.userRepository.findByEmailOrCpf("fulano@email.com", "11144477735");
+        List<User> byCpf = this.userRepository.findByEmailOrCpf("ciclano@email.com", "54737491004");
+        List<User> none = this.userRepository.findByEmailOrCpf("ciclano@email.com", "11144477735");
+        // Verificações
+        assertThat( byEmail ).containsExactly( user );
+        assertThat( byCpf ).containsExactly( user );
+        assertThat( none ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar pelo trecho do nome usando o índice de trigramas.")
+    public void findByFullnameTrigramsTest() {
+        // Cenário
+        User user = User.builder().fullname("José Hamilton").email("jose@email.com").cpf("54737491004").build();
+        entityManager.persist(user);
+        TextNormalizer.trigrams( user.getFullnameNormalized() ).forEach( trigram ->
+                entityManager.persist( UserTrigram.builder().userId(user.getId()).trigram(trigram).build() ) );
+        // Execução
+        List<User> found = this.userRepository.findAll( UserSpecifications.fullnameContains("hamil") );
+        List<User> notFound = this.userRepository.findAll( UserSpecifications.fullnameContains("hamsa") );
+        // Verificações
+        assertThat( found ).containsExactly( user );
+        assertThat( notFound ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar pelo início do email normalizado.")
+    public void findByEmailPrefixTest() {
+        // Cenário
+        User user = createAndPersistUser();
+        // Execução
+        List<User> result = this.userRepository.findAll( UserSpecifications.emailStartsWith("fulano@") );
+        // Verificações
+        assertThat( user.getEmailNormalized() ).isEqualTo("fulano@email.com");
+        assertThat( result ).containsExactly( user );
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os usuários pela chave do último registro (keyset).")
+    public void findSliceAfterCursorTest() {
+        // Cenário
+        User first = User.builder().fullname("Ana").email("ana@email.com").cpf("54737491004").build();
+        User second = User.builder().fullname("Bruno").email("bruno@email.com").cpf("11144477735").build();
+        User third = User.builder().fullname("Bruno").email("bruno2@email.com").cpf("52998224725").build();
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.persist(third);
+        UserCursor cursor = UserCursor.start("fullname");
+        // Execução
+        List<UserSummary> firstPage = this.userRepository.findSlice( cursor.toSpecification(), cursor.toSort(), 2 );
+        UserCursor next = UserCursor.decode( cursor.next( firstPage.get(1) ).encode() );
+        List<UserSummary> secondPage = this.userRepository.findSlice( next.toSpecification(), next.toSort(), 2 );
+        // Verificações
+        assertThat( firstPage ).extracting(UserSummary::getId).containsExactly( first.getId(), second.getId() );
+        assertThat( secondPage ).extracting(UserSummary::getId).containsExactly( third.getId() );
+        assertThat( next.toSort() ).isEqualTo( Sort.by(Sort.Direction.ASC, "fullname", "id") );
+    }
+
+    @Test
+    @DisplayName("Deve alterar apenas os campos informados quando a versão for a atual.")
+    public void updateChangedFieldsTest() {
+        // Cenário
+        User user = createAndPersistUser();
+        entityManager.flush();
+        Long version = user.getVersion();
+        // Execução
+        int outdated = this.userRepository.updateChangedFields( user.getId(), User.builder().fullname("Outro").version(version + 1).build() );
+        int updated = this.userRepository.updateChangedFields( user.getId(), User.builder().fullname("José").version(version).build() );
+        entityManager.clear();
+        // Verificações
+        User found = entityManager.find(User.class, user.getId());
+        assertThat( outdated ).isEqualTo(0);
+        assertThat( updated ).isEqualTo(1);
+        assertThat( found.getFullname() ).isEqualTo("José");
+        assertThat( found.getFullnameNormalized() ).isEqualTo("jose");
+        assertThat( found.getEmail() ).isEqualTo("fulano@email.com");
+        assertThat( found.getVersion() ).isEqualTo( version + 1 );
+    }
+
     @Test
     @DisplayName("Deve retornar o usuário pelo id.")
     public void findUserByIdTest() {
@@ -100,6 +207,95 @@ public class UserRepositoryTest {
         assertThat( deletedUser ).isNull();
     }
 
+    @Test
+    @DisplayName("Deve remover um usuário pelo id em um único DELETE.")
+    public void deleteUserByIdTest() {
+        // Cenário
+        User user = createAndPersistUser();
+        entityManager.flush();
+        entityManager.clear();
+        // Execução
+        int deleted = this.userRepository.deleteUserById( user.getId() );
+        int inexistent = this.userRepository.deleteUserById( user.getId() );
+        // Verificações
+        assertThat( deleted ).isEqualTo(1);
+        assertThat( inexistent ).isEqualTo(0);
+        assertThat( entityManager.find(User.class, user.getId()) ).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os usuários filtrados em ordem de id como projeções.")
+    public void forEachUserTest() {
+        // Cenário
+        User first = User.builder().fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        User second = User.builder().fullname("Ciclano").email("ciclano@email.com").cpf("11144477735").build();
+        User other = User.builder().fullname("Beltrano").email("beltrano@email.com").cpf("52998224725").build();
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.persist(other);
+        entityManager.flush();
+        entityManager.clear();
+        List<UserSummary> visited = new ArrayList<>();
+        // Execução
+        this.userRepository.forEach( UserSpecifications.matching( User.builder().email("c").build() ), visited::add );
+        // Verificações
+        assertThat( visited ).extracting(UserSummary::getId).containsExactly( second.getId() );
+        assertThat( visited.get(0).getEmail() ).isEqualTo("ciclano@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve consultar apenas a versão do usuário pelo id.")
+    public void findVersionByIdTest() {
+        // Cenário
+        User user = createAndPersistUser();
+        entityManager.flush();
+        // Execução
+        Optional<Long> version = this.userRepository.findVersionById( user.getId() );
+        Optional<Long> inexistent = this.userRepository.findVersionById( user.getId() + 1 );
+        // Verificações
+        assertThat( version ).contains( user.getVersion() );
+        assertThat( inexistent ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar usuários como projeção com os campos retornados pela API.")
+    public void findSliceProjectionTest() {
+        // Cenário
+        User user = createAndPersistUser();
+        entityManager.flush();
+        entityManager.clear();
+        // Execução
+        // Nome com menos de 3 letras usa o prefixo, sem depender do índice de trigramas
+        Slice<UserSummary> result = this.userRepository.findSlice( UserSpecifications.matching( User.builder().fullname("Fu").build() ),
+                PageRequest.of(0, 20) );
+        // Verificações
+        assertThat( result.getContent() ).containsExactly( UserSummary.builder()
+                .id( user.getId() )
+                .fullname( user.getFullname() )
+                .cpf( user.getCpf() )
+                .email( user.getEmail() )
+                .version( user.getVersion() )
+                .build() );
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar um usuário pelo cpf e pelo email normalizado.")
+    public void findByCpfAndEmailNormalizedTest() {
+        // Cenário
+        User user = User.builder().fullname("Fulano").email("Fulano@Email.com").cpf("547.374.910-04").build();
+        entityManager.persist(user);
+        entityManager.flush();
+        entityManager.clear();
+        // Execução
+        Optional<User> byCpf = this.userRepository.findByCpf("54737491004");
+        Optional<User> byEmail = this.userRepository.findByEmailNormalized("fulano@email.com");
+        // Verificações
+        assertThat( byCpf ).isPresent();
+        assertThat( byCpf.get().getId() ).isEqualTo( user.getId() );
+        assertThat( byEmail ).isPresent();
+        assertThat( byEmail.get().getId() ).isEqualTo( user.getId() );
+    }
+
     public User createAndPersistUser() {
         User user = User.builder().fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
         entityManager.persist(user);
@@ -0,0 +1,64 @@
+package br.com.josehamilton.crud.api.responses;
+
+import br.com.josehamilton.crud.api.dtos.UserDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule( new SimpleModule().addSerializer( new ResponseSerializer() ) );
+
+    @Test
+    @DisplayName("Deve serializar o envelope com os dados e a lista de erros vazia.")
+    public void serializeWithoutErrors() throws Exception {
+        // Cenário
+        Response<UserDTO> response = new Response<>();
+        response.setData( UserDTO.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build() );
+        // Execução
+        String json = this.objectMapper.writeValueAsString(response);
+        // Verificações
+        assertThat( json ).startsWith("{\"data\":{").endsWith(",\"errors\":[]}");
+        assertThat( this.objectMapper.readTree(json).get("data").get("fullname").asText() ).isEqualTo("Fulano");
+    }
+
+    @Test
+    @DisplayName("Deve converter o envelope em árvore e em mapa, inclusive a lista de erros vazia.")
+    public void convertWithoutErrors() {
+        // Cenário
+        Response<String> response = new Response<>();
+        response.setData("Fulano");
+        // Execução
+        JsonNode tree = this.objectMapper.valueToTree(response);
+        Map<?, ?> map = this.objectMapper.convertValue(response, Map.class);
+        // Verificações
+        assertThat( tree.get("data").asText() ).isEqualTo("Fulano");
+        assertThat( tree.get("errors").isArray() ).isTrue();
+        assertThat( tree.get("errors").size() ).isZero();
+        assertThat( map.get("data") ).isEqualTo("Fulano");
+        assertThat( map.get("errors") ).isEqualTo( Collections.emptyList() );
+    }
+
+    @Test
+    @DisplayName("Deve serializar os erros em ordem e os dados nulos.")
+    public void serializeWithErrors() {
+        // Cenário
+        Response<UserDTO> response = new Response<>();
+        response.getErrors().add("O email já está cadastrado.");
+        response.getErrors().add("O cpf já está cadastrado.");
+        // Execução
+        JsonNode tree = this.objectMapper.valueToTree(response);
+        // Verificações
+        assertThat( tree.get("data").isNull() ).isTrue();
+        assertThat( tree.get("errors").get(0).asText() ).isEqualTo("O email já está cadastrado.");
+        assertThat( tree.get("errors").get(1).asText() ).isEqualTo("O cpf já está cadastrado.");
+    }
+
+}
@@ -0,0 +1,22 @@
+package br.com.josehamilton.crud.api.service;
+
+import br.com.josehamilton.crud.api.service.impl.BoundedUserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Os mesmos cenários de cache no modo "bounded": o @Primary chama o serviço pelo proxy do Spring em outra thread,
+// o cache e a transação continuam sendo aplicados em cada chamada
+@SpringBootTest(properties = "user.api.execution-mode=bounded")
+public class BoundedUserServiceCacheTest extends UserServiceCacheTest {
+
+    @Test
+    @DisplayName("Deve injetar o serviço limitado como principal.")
+    public void injectBoundedService() {
+        // Verificações
+        assertThat( this.userService ).isInstanceOf(BoundedUserService.class);
+    }
+
+}
@@ -0,0 +1,176 @@
+package br.com.josehamilton.crud.api.service;
+
+import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.exception.BusinessException;
+import br.com.josehamilton.crud.api.exception.ServiceUnavailableException;
+import br.com.josehamilton.crud.api.service.impl.BoundedUserService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedUserServiceTest {
+
+    private final UserService delegate = Mockito.mock(UserService.class);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    private BoundedUserService boundedUserService;
+
+    @AfterEach
+    public void tearDown() {
+        this.release.countDown();
+        this.callers.shutdownNow();
+        this.boundedUserService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve repassar a chamada e o resultado do serviço.")
+    public void delegateCall() {
+        // Cenário
+        this.boundedUserService = new BoundedUserService(this.delegate, 1, 1, 1000, 1);
+        User user = User.builder().id(1l).fullname("Fulano").build();
+        Mockito.when( this.delegate.getUserById(1l) ).thenReturn( Optional.of(user) );
+        // Execução
+        Optional<User> foundUser = this.boundedUserService.getUserById(1l);
+        // Verificações
+        assertThat( foundUser ).contains(user);
+    }
+
+    @Test
+    @DisplayName("Deve repassar a exceção original do serviço.")
+    public void rethrowServiceException() {
+        // Cenário
+        this.boundedUserService = new BoundedUserService(this.delegate, 1, 1, 1000, 1);
+        Mockito.when( this.delegate.save(Mockito.any(User.class)) ).thenThrow( new BusinessException("O email já está cadastrado.") );
+        // Execução
+        Throwable throwable = Assertions.catchThrowable( () -> this.boundedUserService.save(new User()) );
+        // Verificações
+        assertThat( throwable ).isInstanceOf(BusinessException.class).hasMessage("O email já está cadastrado.");
+    }
+
+    @Test
+    @DisplayName("Deve retornar indisponível quando o pool e a fila estão cheios.")
+    public void rejectWhenQueueIsFull() throws Exception {
+        // Cenário: uma chamada ocupa o pool e outra a fila
+        this.boundedUserService = new BoundedUserService(this.delegate, 1, 1, 10000, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        Mockito.when( this.delegate.getUserById(Mockito.anyLong()) ).thenAnswer( invocation -> {
+            started.countDown();
+            this.release.await();
+            return Optional.empty();
+        } );
+        this.callers.submit( () -> this.boundedUserService.getUserById(1l) );
+        assertThat( started.await(5, TimeUnit.SECONDS) ).isTrue();
+        AtomicReference<Thread> queuedCaller = new AtomicReference<>();
+        this.callers.submit( () -> {
+            queuedCaller.set( Thread.currentThread() );
+            return this.boundedUserService.getUserById(2l);
+        } );
+        waitForQueuedCall(queuedCaller);
+        // Execução
+        Throwable throwable = Assertions.catchThrowable( () -> this.boundedUserService.getUserById(3l) );
+        // Verificações
+        assertThat( throwable ).isInstanceOf(ServiceUnavailableException.class);
+        Mockito.verify( this.delegate, Mockito.never() ).getUserById(3l);
+    }
+
+    @Test
+    @DisplayName("Deve retornar indisponível quando a chamada passa do tempo limite.")
+    public void timeoutSlowCall() {
+        // Cenário
+        this.boundedUserService = new BoundedUserService(this.delegate, 1, 1, 50, 1);
+        Mockito.when( this.delegate.getUserById(Mockito.anyLong()) ).thenAnswer( invocation -> {
+            this.release.await();
+            return Optional.empty();
+        } );
+        // Execução
+        Throwable throwable = Assertions.catchThrowable( () -> this.boundedUserService.getUserById(1l) );
+        // Verificações
+        assertThat( throwable ).isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    @DisplayName("Deve aguardar a escrita em andamento mesmo depois do tempo limite.")
+    public void waitForRunningWrite() {
+        // Cenário
+        this.boundedUserService = new BoundedUserService(this.delegate, 1, 1, 50, 1);
+        User user = User.builder().id(1l).fullname("Fulano").build();
+        Mockito.when( this.delegate.save(Mockito.any(User.class)) ).thenAnswer( invocation -> {
+            Thread.sleep(300);
+            return user;
+        } );
+        // Execução
+        User savedUser = this.boundedUserService.save(new User());
+        // Verificações
+        assertThat( savedUser ).isSameAs(user);
+    }
+
+    @Test
+    @DisplayName("Deve descartar a escrita que passou do tempo limite ainda na fila.")
+    public void discardQueuedWrite() throws Exception {
+        // Cenário: uma escrita em andamento (que não é interrompida pelo tempo limite) ocupa o pool
+        this.boundedUserService = new BoundedUserService(this.delegate, 1, 1, 50, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        Mockito.when( this.delegate.save(Mockito.any(User.class)) ).thenAnswer( invocation -> {
+            started.countDown();
+            this.release.await();
+            return new User();
+        } );
+        this.callers.submit( () -> this.boundedUserService.save(new User()) );
+        assertThat( started.await(5, TimeUnit.SECONDS) ).isTrue();
+        // Execução
+        Throwable throwable = Assertions.catchThrowable( () -> this.boundedUserService.deleteById(2l) );
+        this.release.countDown();
+        this.boundedUserService.getUserById(3l);
+        // Verificações: a thread do pool já passou pela escrita descartada
+        assertThat( throwable ).isInstanceOf(ServiceUnavailableException.class);
+        Mockito.verify( this.delegate, Mockito.never() ).deleteById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve exportar em um pool próprio, sem ocupar as vagas das demais chamadas.")
+    public void exportOnSeparatePool() throws Exception {
+        // Cenário: uma exportação ocupa o único lugar do pool de exportação
+        this.boundedUserService = new BoundedUserService(this.delegate, 1, 1, 1000, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        Mockito.doAnswer( invocation -> {
+            started.countDown();
+            this.release.await();
+            return null;
+        } ).when( this.delegate ).export(Mockito.any(), Mockito.any());
+        this.callers.submit( () -> this.boundedUserService.export(new User(), summary -> {}) );
+        assertThat( started.await(5, TimeUnit.SECONDS) ).isTrue();
+        User user = User.builder().id(1l).fullname("Fulano").build();
+        Mockito.when( this.delegate.getUserById(1l) ).thenReturn( Optional.of(user) );
+        // Execução
+        Optional<User> foundUser = this.boundedUserService.getUserById(1l);
+        Throwable throwable = Assertions.catchThrowable( () -> this.boundedUserService.export(new User(), summary -> {}) );
+        // Verificações
+        assertThat( foundUser ).contains(user);
+        assertThat( throwable ).isInstanceOf(ServiceUnavailableException.class);
+        Mockito.verify( this.delegate, Mockito.times(1) ).export(Mockito.any(), Mockito.any());
+    }
+
+    // Quem chama fica aguardando o resultado com tempo limite depois que a chamada entra na fila
+    private static void waitForQueuedCall(AtomicReference<Thread> caller) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ( caller.get() == null || caller.get().getState() != Thread.State.TIMED_WAITING ) {
+            assertThat( System.currentTimeMillis() ).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package br.com.josehamilton.crud.api.service;
+
+import br.com.josehamilton.crud.api.config.CacheConfig;
+import br.com.josehamilton.crud.api.entity.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Passa pelo proxy do serviço com o banco em memória: as anotações de cache só valem nas chamadas pelo Spring
+@SpringBootTest
+public class UserServiceCacheTest {
+
+    // Emails e CPFs distintos entre os testes, o contexto (e o banco) é compartilhado
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Cache users;
+
+    @BeforeEach
+    public void setUp() {
+        this.users = this.cacheManager.getCache(CacheConfig.USERS);
+        this.users.clear();
+    }
+
+    @Test
+    @DisplayName("Deve colocar no cache o usuário salvo.")
+    public void cacheSavedUser() {
+        // Execução
+        User savedUser = this.userService.save( newUser() );
+        // Verificações
+        assertThat( this.users.get(savedUser.getId(), User.class) ).isEqualTo(savedUser);
+    }
+
+    @Test
+    @DisplayName("Deve ler do cache a partir da segunda consulta pelo id.")
+    public void cacheUserById() {
+        // Cenário
+        User savedUser = this.userService.save( newUser() );
+        this.users.clear();
+        // Execução
+        this.userService.getUserById( savedUser.getId() );
+        // Verificações
+        assertThat( this.users.get(savedUser.getId(), User.class) ).isNotNull();
+        assertThat( this.userService.getUserById( savedUser.getId() ) ).contains( this.users.get(savedUser.getId(), User.class) );
+    }
+
+    @Test
+    @DisplayName("Deve atualizar no cache o usuário alterado.")
+    public void refreshUpdatedUser() {
+        // Cenário
+        User savedUser = this.userService.save( newUser() );
+        savedUser.setFullname("Fulano Alterado");
+        // Execução
+        this.userService.update( savedUser );
+        // Verificações
+        assertThat( this.users.get(savedUser.getId(), User.class).getFullname() ).isEqualTo("Fulano Alterado");
+    }
+
+    @Test
+    @DisplayName("Deve colocar no cache o usuário alterado parcialmente, lido após a alteração.")
+    public void refreshPatchedUser() {
+        // Cenário
+        User savedUser = this.userService.save( newUser() );
+        // Execução
+        boolean patched = this.userService.patch( savedUser.getId(), User.builder().fullname("Fulano Alterado").build() );
+        // Verificações
+        assertThat( patched ).isTrue();
+        User cached = this.users.get(savedUser.getId(), User.class);
+        assertThat( cached.getFullname() ).isEqualTo("Fulano Alterado");
+        assertThat( cached.getEmail() ).isEqualTo( savedUser.getEmail() );
+        assertThat( cached.getVersion() ).isEqualTo( savedUser.getVersion() + 1 );
+    }
+
+    @Test
+    @DisplayName("Deve marcar no cache o usuário excluído.")
+    public void markDeletedUser() {
+        // Cenário
+        User deletedUser = this.userService.save( newUser() );
+        User deletedById = this.userService.save( newUser() );
+        // Execução
+        this.userService.delete( deletedUser );
+        this.userService.deleteById( deletedById.getId() );
+        // Verificações
+        assertThat( this.users.get(deletedUser.getId()).get() ).isNull();
+        assertThat( this.users.get(deletedById.getId()).get() ).isNull();
+        assertThat( this.userService.getUserById( deletedUser.getId() ) ).isEmpty();
+        assertThat( this.userService.getUserVersion( deletedById.getId() ) ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve marcar no cache apenas os usuários excluídos em lote.")
+    public void markUsersDeletedInBatch() {
+        // Cenário
+        User first = this.userService.save( newUser() );
+        User second = this.userService.save( newUser() );
+        User kept = this.userService.save( newUser() );
+        // Execução
+        int deletedRows = this.userService.deleteAllById( Arrays.asList(first.getId(), second.getId()) );
+        // Verificações
+        assertThat( deletedRows ).isEqualTo(2);
+        assertThat( this.users.get(first.getId()).get() ).isNull();
+        assertThat( this.users.get(second.getId()).get() ).isNull();
+        assertThat( this.users.get(kept.getId(), User.class) ).isEqualTo(kept);
+        assertThat( this.userService.getUsersByIds( Arrays.asList(first.getId(), kept.getId()) ) ).containsOnlyKeys( kept.getId() );
+    }
+
+    @Test
+    @DisplayName("Deve registrar as métricas de acertos, falhas e remoções do cache de usuários.")
+    public void registerCacheMetrics() {
+        // Cenário
+        User savedUser = this.userService.save( newUser() );
+        this.users.clear();
+        double hits = gets("hit").count();
+        double misses = gets("miss").count();
+        // Execução
+        this.userService.getUserById( savedUser.getId() );
+        this.userService.getUserById( savedUser.getId() );
+        // Verificações
+        assertThat( gets("miss").count() ).isEqualTo( misses + 1 );
+        assertThat( gets("hit").count() ).isEqualTo( hits + 1 );
+        assertThat( this.meterRegistry.find("cache.evictions").tag("cache", CacheConfig.USERS).functionCounter() ).isNotNull();
+        assertThat( this.meterRegistry.find("cache.puts").tag("cache", CacheConfig.USERS).functionCounter() ).isNotNull();
+    }
+
+    private FunctionCounter gets(String result) {
+        return this.meterRegistry.get("cache.gets").tag("cache", CacheConfig.USERS).tag("result", result).functionCounter();
+    }
+
+    private static User newUser() {
+        int sequence = SEQUENCE.incrementAndGet();
+        return User.builder()
+                .fullname("Fulano " + sequence)
+                .email("cache" + sequence + "@email.com")
+                .cpf( String.format("%011d", 90000000000L + sequence) )
+                .build();
+    }
+
+}
@@ -1,23 +1,47 @@
 package br.com.josehamilton.crud.api.service;
 
+import br.com.josehamilton.crud.api.config.CacheConfig;
 import br.com.josehamilton.crud.api.entity.User;
+import br.com.josehamilton.crud.api.entity.UserSummary;
 import br.com.josehamilton.crud.api.exception.BusinessException;
 import br.com.josehamilton.crud.api.repository.UserRepository;
+import br.com.josehamilton.crud.api.repository.UserTrigramRepository;
+import br.com.josehamilton.crud.api.responses.Response;
+import br.com.josehamilton.crud.api.service.impl.UserKeyFilter;
 import br.com.josehamilton.crud.api.service.impl.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -30,9 +54,12 @@ public class UserServiceTest {
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    UserTrigramRepository userTrigramRepository;
+
     @BeforeEach
     public void setUp() {
-        this.userService = new UserServiceImpl(userRepository);
+        this.userService = createService( new ConcurrentMapCacheManager(), createKeyFilter() );
     }
 
     @Test
@@ -50,9 +77,8 @@ public class UserServiceTest {
                 .email("fulano@email.com")
                 .cpf("54737491004")
                 .build();
-        Mockito.when( userRepository.existsByEmail(Mockito.anyString()) ).thenReturn( false );
-        Mockito.when( userRepository.existsByCpf(Mockito.anyString()) ).thenReturn( false );
-        Mockito.when( userRepository.save( user ) ).thenReturn( savedUser );
+        Mockito.when( userRepository.findByEmailOrCpf(Mockito.anyString(), Mockito.anyString()) ).thenReturn( Arrays.asList() );
+        Mockito.when( userRepository.saveAndFlush( user ) ).thenReturn( savedUser );
         // Execução
         savedUser = this.userService.save( user );
         // Verificação
@@ -62,6 +88,22 @@ public class UserServiceTest {
         assertThat(savedUser.getCpf()).isEqualTo(user.getCpf());
     }
 
+    @Test
+    @DisplayName("Deve salvar um usuário sem consultar chaves que o filtro descarta.")
+    public void createAnUserSkippingUniqueQueryTest() {
+        // Cenário
+        UserKeyFilter userKeyFilter = createKeyFilter();
+        userKeyFilter.rebuild( sink -> {} );
+        UserService service = createService( new ConcurrentMapCacheManager(), userKeyFilter );
+        User user = User.builder().fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        Mockito.when( userRepository.saveAndFlush( user ) ).thenReturn( user );
+        // Execução
+        service.save( user );
+        // Verificação
+        Mockito.verify( userRepository, Mockito.never() ).findByEmailOrCpf(Mockito.anyString(), Mockito.anyString());
+        assertThat( userKeyFilter.mightContain("fulano@email.com", "54737491004") ).isTrue();
+    }
+
     @Test
     @DisplayName("Deve retornar erro ao tentar salvar um usuário com email já existente.")
     public void createAnUserExistentEmail() {
@@ -71,12 +113,13 @@ public class UserServiceTest {
                 .email("fulano@email.com")
                 .cpf("54737491004")
                 .build();
-        Mockito.when( userRepository.existsByEmail(Mockito.anyString()) ).thenReturn( true );
+        User existing = User.builder().id(2l).fullname("Ciclano").email("fulano@email.com").cpf("11144477735").build();
+        Mockito.when( userRepository.findByEmailOrCpf(Mockito.anyString(), Mockito.anyString()) ).thenReturn( Arrays.asList(existing) );
         // Execução
         Throwable throwable = Assertions.catchThrowable(() -> userService.save(user));
         // Verificações
         assertThat( throwable ).isInstanceOf( BusinessException.class ).hasMessage("O email já está cadastrado.");
-        Mockito.verify( userRepository, Mockito.never() ).save(user);
+        Mockito.verify( userRepository, Mockito.never() ).saveAndFlush(user);
     }
 
     @Test
@@ -88,12 +131,84 @@ public class UserServiceTest {
                 .email("fulano@email.com")
                 .cpf("54737491004")
                 .build();
-        Mockito.when( userRepository.existsByCpf(Mockito.anyString()) ).thenReturn( true );
+        User existing = User.builder().id(2l).fullname("Ciclano").email("ciclano@email.com").cpf("54737491004").build();
+        Mockito.when( userRepository.findByEmailOrCpf(Mockito.anyString(), Mockito.anyString()) ).thenReturn( Arrays.asList(existing) );
         // Execução
         Throwable throwable = Assertions.catchThrowable(() -> userService.save(user));
         // Verificações
         assertThat( throwable ).isInstanceOf( BusinessException.class ).hasMessage("O cpf já está cadastrado.");
-        Mockito.verify( userRepository, Mockito.never() ).save(user);
+        Mockito.verify( userRepository, Mockito.never() ).saveAndFlush(user);
+    }
+
+    @Test
+    @DisplayName("Deve traduzir a violação da constraint de cpf em cadastros concorrentes.")
+    public void createAnUserConcurrentCPF() {
+        // Cenário
+        User user = User.builder()
+                .fullname("Fulano")
+                .email("fulano@email.com")
+                .cpf("54737491004")
+                .build();
+        Mockito.when( userRepository.saveAndFlush(user) ).thenThrow( new DataIntegrityViolationException( "could not execute statement",
+                new ConstraintViolationException( "Unique index or primary key violation", null, "PUBLIC.UK_USER_CPF_INDEX_2" ) ) );
+        // Execução
+        Throwable throwable = Assertions.catchThrowable(() -> userService.save(user));
+        // Verificações
+        assertThat( throwable ).isInstanceOf( BusinessException.class ).hasMessage("O cpf já está cadastrado.");
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao alterar um usuário para o email de outro usuário.")
+    public void updateAnUserExistentEmail() {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("ciclano@email.com").cpf("54737491004").build();
+        User itself = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        User other = User.builder().id(2l).fullname("Ciclano").email("ciclano@email.com").cpf("11144477735").build();
+        Mockito.when( userRepository.findByEmailOrCpf("ciclano@email.com", "54737491004") ).thenReturn( Arrays.asList(itself, other) );
+        // Execução
+        Throwable throwable = Assertions.catchThrowable(() -> userService.update(user));
+        // Verificações
+        assertThat( throwable ).isInstanceOf( BusinessException.class ).hasMessage("O email já está cadastrado.");
+        Mockito.verify( userRepository, Mockito.never() ).saveAndFlush(user);
+    }
+
+    @Test
+    @DisplayName("Deve salvar em lote apenas os usuários sem email ou cpf duplicado.")
+    public void saveAllUsersTest() {
+        // Cenário
+        User newUser = User.builder().fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        User existingEmail = User.builder().fullname("Ciclano").email("ciclano@email.com").cpf("11144477735").build();
+        User duplicatedInBatch = User.builder().fullname("Beltrano").email("beltrano@email.com").cpf("54737491004").build();
+        Mockito.when( userRepository.findExistingEmails(Mockito.anyCollection()) ).thenReturn( Arrays.asList("ciclano@email.com") );
+        Mockito.when( userRepository.findExistingCpfs(Mockito.anyCollection()) ).thenReturn( Arrays.asList() );
+        // Execução
+        List<Response<User>> result = this.userService.saveAll( Arrays.asList(newUser, existingEmail, duplicatedInBatch) );
+        // Verificações
+        assertThat( result ).hasSize(3);
+        assertThat( result.get(0).getData() ).isEqualTo( newUser );
+        assertThat( result.get(0).getErrors() ).isEmpty();
+        assertThat( result.get(1).getData() ).isNull();
+        assertThat( result.get(1).getErrors() ).containsExactly("O email já está cadastrado.");
+        assertThat( result.get(2).getErrors() ).containsExactly("O cpf já está cadastrado.");
+        Mockito.verify( userRepository, Mockito.times(1) ).saveAll( Arrays.asList(newUser) );
+        Mockito.verify( userRepository, Mockito.never() ).existsByEmail( Mockito.anyString() );
+    }
+
+    @Test
+    @DisplayName("Deve conferir no banco as chaves do lote mesmo quando o filtro as considera novas.")
+    public void saveAllIgnoresStaleKeyFilter() {
+        // Cenário: filtro carregado sem chaves, como o de uma instância que não viu a gravação
+        UserKeyFilter userKeyFilter = createKeyFilter();
+        userKeyFilter.rebuild( sink -> {} );
+        UserService service = createService( new ConcurrentMapCacheManager(), userKeyFilter );
+        User existing = User.builder().fullname("Ciclano").email("ciclano@email.com").cpf("11144477735").build();
+        Mockito.when( userRepository.findExistingEmails(Mockito.anyCollection()) ).thenReturn( Arrays.asList("ciclano@email.com") );
+        Mockito.when( userRepository.findExistingCpfs(Mockito.anyCollection()) ).thenReturn( Arrays.asList() );
+        // Execução
+        List<Response<User>> result = service.saveAll( Arrays.asList(existing) );
+        // Verificações
+        assertThat( result.get(0).getErrors() ).containsExactly("O email já está cadastrado.");
+        Mockito.verify( userRepository ).saveAll( Collections.emptyList() );
     }
 
     @Test
@@ -164,14 +279,45 @@ public class UserServiceTest {
         Mockito.verify(userRepository, Mockito.never()).delete(user);
     }
 
+    @Test
+    @DisplayName("Deve remover um usuário pelo id sem carregá-lo.")
+    public void deleteByIdTest() {
+        // Cenário
+        Mockito.when( userRepository.deleteUserById(1l) ).thenReturn( 1 );
+        // Execução
+        boolean deleted = this.userService.deleteById(1l);
+        // Verificações
+        assertThat( deleted ).isTrue();
+        Mockito.verify( userRepository, Mockito.never() ).findById( Mockito.anyLong() );
+        Mockito.verify( userTrigramRepository ).deleteByUserId(1l);
+    }
+
+    @Test
+    @DisplayName("Deve remover usuários em blocos a partir de uma lista de ids.")
+    public void deleteAllByIdTest() {
+        // Cenário
+        List<Long> ids = new ArrayList<>();
+        for ( long id = 1; id <= 1500; id++ ) {
+            ids.add(id);
+        }
+        ids.add(1l);
+        Mockito.when( userRepository.deleteUsersByIdIn( Mockito.anyCollection() ) ).thenReturn( 1000, 500 );
+        // Execução
+        int deleted = this.userService.deleteAllById(ids);
+        // Verificações
+        assertThat( deleted ).isEqualTo(1500);
+        Mockito.verify( userRepository, Mockito.times(2) ).deleteUsersByIdIn( Mockito.anyCollection() );
+        Mockito.verify( userTrigramRepository, Mockito.times(2) ).deleteByUserIdIn( Mockito.anyCollection() );
+    }
+
     @Test
     @DisplayName("Deve alterar um usuário.")
     public void updateAnUserTest() {
         // Cenário
         Long id = 1l;
-        User user = User.builder().id(1l).build();
+        User user = User.builder().id(1l).version(2l).build();
         User userUpdated = User.builder().id(id).fullname("Fulano").email("email@email.com").cpf("12345678900").build();
-        Mockito.when( this.userRepository.save( user ) ).thenReturn( userUpdated );
+        Mockito.when( this.userRepository.saveAndFlush( user ) ).thenReturn( userUpdated );
         // Execução
         User result = this.userService.update( user );
         // Verificações
@@ -181,6 +327,35 @@ public class UserServiceTest {
         assertThat( result.getCpf() ).isEqualTo( userUpdated.getCpf() );
     }
 
+    @Test
+    @DisplayName("Deve alterar um usuário sem versão informada usando a versão atual do banco, não a do cache.")
+    public void updateAnUserWithoutVersionTest() {
+        // Cenário
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        cacheManager.getCache(CacheConfig.USERS).put(1l, User.builder().id(1l).fullname("Fulano").version(2l).build());
+        UserService service = createService( cacheManager, createKeyFilter() );
+        User user = User.builder().id(1l).fullname("Fulano alterado").email("email@email.com").cpf("12345678900").build();
+        Mockito.when( this.userRepository.findVersionById(1l) ).thenReturn( Optional.of(5l) );
+        Mockito.when( this.userRepository.saveAndFlush( Mockito.any(User.class) ) ).thenAnswer( invocation -> invocation.getArgument(0) );
+        // Execução
+        User result = service.update( user );
+        // Verificações
+        assertThat( result.getVersion() ).isEqualTo(5l);
+    }
+
+    @Test
+    @DisplayName("Deve dar erro ao alterar um usuário sem versão que não existe mais.")
+    public void updateARemovedUserWithoutVersionTest() {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("email@email.com").cpf("12345678900").build();
+        Mockito.when( this.userRepository.findVersionById(1l) ).thenReturn( Optional.empty() );
+        // Execução
+        Throwable throwable = Assertions.catchThrowable( () -> this.userService.update( user ) );
+        // Verificações
+        assertThat( throwable ).isInstanceOf(BusinessException.class).hasMessage("Usuário que está tentando ser alterado não existe.");
+        Mockito.verify( this.userRepository, Mockito.never() ).saveAndFlush( Mockito.any(User.class) );
+    }
+
     @Test
     @DisplayName("Deve dar erro ao tentar alterar um usuário.")
     public void updateAnInexistentUserTest() {
@@ -189,7 +364,49 @@ public class UserServiceTest {
         // Execução
         org.junit.jupiter.api.Assertions.assertThrows(BusinessException.class, () -> this.userService.update( user ));
         // Verificações
-        Mockito.verify( this.userRepository, Mockito.never() ).save( user );
+        Mockito.verify( this.userRepository, Mockito.never() ).saveAndFlush( user );
+    }
+
+    @Test
+    @DisplayName("Deve alterar parcialmente um usuário em um único UPDATE.")
+    public void patchAnUserTest() {
+        // Cenário
+        User changes = User.builder().fullname("Fulano alterado").version(0l).build();
+        Mockito.when( this.userRepository.updateChangedFields(1l, changes) ).thenReturn( 1 );
+        // Execução
+        boolean updated = this.userService.patch( 1l, changes );
+        // Verificações
+        assertThat( updated ).isTrue();
+        // O usuário só é lido depois do UPDATE, para ir ao cache com os valores gravados
+        InOrder inOrder = Mockito.inOrder( this.userRepository );
+        inOrder.verify( this.userRepository ).updateChangedFields( 1l, changes );
+        inOrder.verify( this.userRepository ).findById( 1l );
+        Mockito.verify( this.userRepository, Mockito.never() ).findByEmailOrCpf( Mockito.any(), Mockito.any() );
+        Mockito.verify( this.userTrigramRepository ).deleteByUserId( 1l );
+    }
+
+    @Test
+    @DisplayName("Deve dar erro de concorrência ao alterar parcialmente com versão desatualizada.")
+    public void patchAnOutdatedUserTest() {
+        // Cenário
+        User changes = User.builder().email("fulano@email.com").version(0l).build();
+        Mockito.when( this.userRepository.updateChangedFields(1l, changes) ).thenReturn( 0 );
+        Mockito.when( this.userRepository.existsById(1l) ).thenReturn( true );
+        // Execução e verificação
+        org.junit.jupiter.api.Assertions.assertThrows(OptimisticLockingFailureException.class, () -> this.userService.patch( 1l, changes ));
+    }
+
+    @Test
+    @DisplayName("Deve retornar falso ao alterar parcialmente um usuário inexistente.")
+    public void patchAnInexistentUserTest() {
+        // Cenário
+        User changes = User.builder().fullname("Fulano").build();
+        Mockito.when( this.userRepository.updateChangedFields(1l, changes) ).thenReturn( 0 );
+        // Execução
+        boolean updated = this.userService.patch( 1l, changes );
+        // Verificações
+        assertThat( updated ).isFalse();
+        Mockito.verify( this.userRepository, Mockito.never() ).existsById( Mockito.anyLong() );
     }
 
     @Test
@@ -198,11 +415,11 @@ public class UserServiceTest {
         // Cenário
         User user = User.builder().id(1l).fullname("Fulano").email("email@email.com").cpf("12345678900").build();
         PageRequest pageRequest = PageRequest.of(0, 20);
-        List<User> list = Arrays.asList(user);
-        Page<User> page = new PageImpl<User>(list, pageRequest, 1 );
-        Mockito.when( this.userRepository.findAll( Mockito.any(Example.class), Mockito.any(Pageable.class) ) ).thenReturn( page );
+        List<UserSummary> list = Arrays.asList( UserSummary.builder().id(1l).fullname("Fulano").email("email@email.com").cpf("12345678900").build() );
+        Slice<UserSummary> slice = new SliceImpl<UserSummary>(list, pageRequest, false );
+        Mockito.when( this.userRepository.findSlice( Mockito.any(Specification.class), Mockito.any(Pageable.class) ) ).thenReturn( slice );
         // Execução
-        Page<User> result = this.userService.find( user, pageRequest );
+        Page<UserSummary> result = this.userService.find( user, pageRequest );
         // Verificações
         assertThat( result.getTotalElements() ).isEqualTo(1);
         assertThat( result.getContent() ).isEqualTo( list );
@@ -210,4 +427,207 @@ public class UserServiceTest {
         assertThat( result.getPageable().getPageNumber() ).isEqualTo(0);
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Deve fazer uma única consulta para buscas concorrentes do mesmo usuário.")
+    public void getUserByIdThunderingHerd() throws Exception {
+        // Cenário
+        int threads = 200;
+        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        CountDownLatch arrived = new CountDownLatch(threads);
+        Mockito.when( this.userRepository.findById(1l) ).thenAnswer( invocation -> {
+            // Segurando a consulta até que todas as requisições tenham chegado
+            arrived.await(5, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            return Optional.of(user);
+        });
+        // Execução
+        List<Optional<User>> results = runConcurrently( threads, arrived, () -> this.userService.getUserById(1l) );
+        // Verificações
+        assertThat( results ).hasSize(threads).allMatch( result -> result.equals( Optional.of(user) ) );
+        Mockito.verify( this.userRepository, Mockito.times(1) ).findById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve fazer uma única consulta para pesquisas concorrentes com o mesmo filtro e página.")
+    public void findThunderingHerd() throws Exception {
+        // Cenário
+        int threads = 100;
+        PageRequest pageRequest = PageRequest.of(0, 20);
+        Slice<UserSummary> slice = new SliceImpl<UserSummary>( Arrays.asList( UserSummary.builder().id(1l).build() ), pageRequest, false );
+        CountDownLatch arrived = new CountDownLatch(threads);
+        Mockito.when( this.userRepository.findSlice( Mockito.any(Specification.class), Mockito.any(Pageable.class) ) ).thenAnswer( invocation -> {
+            arrived.await(5, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            return slice;
+        });
+        // Execução
+        List<Page<UserSummary>> results = runConcurrently( threads, arrived,
+                () -> this.userService.find( User.builder().fullname("Fulano").build(), PageRequest.of(0, 20) ) );
+        // Verificações
+        assertThat( results ).hasSize(threads).allMatch( result -> result.getTotalElements() == 1 );
+        Mockito.verify( this.userRepository, Mockito.times(1) ).findSlice( Mockito.any(Specification.class), Mockito.any(Pageable.class) );
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar o total em cache para o mesmo filtro normalizado.")
+    public void getUsersByParamsCachedCount() {
+        // Cenário
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        Slice<UserSummary> slice = new SliceImpl<UserSummary>( Arrays.asList( UserSummary.builder().id(1l).build() ), pageRequest, true );
+        Mockito.when( this.userRepository.findSlice( Mockito.any(Specification.class), Mockito.any(Pageable.class) ) ).thenReturn( slice );
+        Mockito.when( this.userRepository.count( Mockito.any(Specification.class) ) ).thenReturn( 5l );
+        // Execução
+        Page<UserSummary> first = this.userService.find( User.builder().fullname("Fulano").build(), pageRequest );
+        Page<UserSummary> second = this.userService.find( User.builder().fullname(" FULANO ").build(), pageRequest );
+        // Verificações
+        assertThat( first.getTotalElements() ).isEqualTo(5);
+        assertThat( second.getTotalElements() ).isEqualTo(5);
+        Mockito.verify( this.userRepository, Mockito.times(1) ).count( Mockito.any(Specification.class) );
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar sem executar o count quando o total não for solicitado.")
+    public void getUsersSliceWithoutCount() {
+        // Cenário
+        PageRequest pageRequest = PageRequest.of(0, 20);
+        Slice<UserSummary> slice = new SliceImpl<UserSummary>( Arrays.asList(), pageRequest, false );
+        Mockito.when( this.userRepository.findSlice( Mockito.isNull(), Mockito.any(Pageable.class) ) ).thenReturn( slice );
+        // Execução
+        Slice<UserSummary> result = this.userService.findSlice( new User(), pageRequest );
+        // Verificações
+        assertThat( result.hasNext() ).isFalse();
+        Mockito.verify( this.userRepository, Mockito.never() ).count( Mockito.any(Specification.class) );
+    }
+
+    @Test
+    @DisplayName("Deve exportar os usuários delegando a leitura em cursor ao repositório.")
+    @SuppressWarnings("unchecked")
+    public void exportUsers() {
+        // Cenário
+        List<UserSummary> exported = new ArrayList<>();
+        UserSummary user = UserSummary.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        Mockito.doAnswer( invocation -> {
+            Consumer<UserSummary> consumer = invocation.getArgument(1);
+            consumer.accept(user);
+            return null;
+        } ).when( this.userRepository ).forEach( Mockito.any(Specification.class), Mockito.any(Consumer.class) );
+        // Execução
+        this.userService.export( User.builder().fullname("Fulano").build(), exported::add );
+        // Verificações
+        assertThat( exported ).containsExactly( user );
+    }
+
+    @Test
+    @DisplayName("Deve obter a versão do usuário pelo cache sem consultar o banco.")
+    public void getUserVersionFromCache() {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").version(2l).build();
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        cacheManager.getCache(CacheConfig.USERS).put(1l, user);
+        UserService service = createService( cacheManager, createKeyFilter() );
+        // Execução
+        Optional<Long> cached = service.getUserVersion(1l);
+        Mockito.when( this.userRepository.findVersionById(5l) ).thenReturn( Optional.of(0l) );
+        Optional<Long> loaded = service.getUserVersion(5l);
+        // Verificações
+        assertThat( cached ).contains(2l);
+        assertThat( loaded ).contains(0l);
+        Mockito.verify( this.userRepository, Mockito.never() ).findVersionById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar vários usuários pelos ids consultando no banco apenas os que não estão em cache.")
+    @SuppressWarnings("unchecked")
+    public void getUsersByIdsUsingCache() {
+        // Cenário
+        User cached = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        User stored = User.builder().id(2l).fullname("Ciclano").email("ciclano@email.com").cpf("11144477735").build();
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        cacheManager.getCache(CacheConfig.USERS).put(1l, cached);
+        UserService service = createService( cacheManager, createKeyFilter() );
+        Mockito.when( this.userRepository.findAllById( Mockito.anyIterable() ) ).thenReturn( Arrays.asList(stored) );
+        // Execução
+        Map<Long, User> found = service.getUsersByIds( Arrays.asList(1l, 2l, 3l) );
+        // Verificações
+        assertThat( found ).containsOnlyKeys(1l, 2l);
+        ArgumentCaptor<Iterable<Long>> queried = ArgumentCaptor.forClass(Iterable.class);
+        Mockito.verify( this.userRepository ).findAllById( queried.capture() );
+        assertThat( queried.getValue() ).containsExactly(2l, 3l);
+        assertThat( cacheManager.getCache(CacheConfig.USERS).get(2l, User.class) ).isEqualTo(stored);
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar pelo cpf uma única vez no banco e depois pelo cache de chaves.")
+    public void getUserByCpfUsingKeyCache() {
+        // Cenário
+        User user = User.builder().id(1l).fullname("Fulano").email("fulano@email.com").cpf("54737491004").build();
+        Mockito.when( this.userRepository.findByCpf("54737491004") ).thenReturn( Optional.of(user) );
+        // Execução
+        Optional<User> first = this.userService.getUserByCpf("547.374.910-04");
+        Optional<User> second = this.userService.getUserByCpf("54737491004");
+        // Verificações
+        assertThat( first ).contains(user);
+        assertThat( second ).contains(user);
+        Mockito.verify( this.userRepository, Mockito.times(1) ).findByCpf("54737491004");
+    }
+
+    @Test
+    @DisplayName("Deve descartar a chave em cache quando o usuário não possuir mais o email.")
+    public void getUserByEmailRevalidatesKeyCache() {
+        // Cenário
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        User changed = User.builder().id(1l).fullname("Fulano").email("outro@email.com").cpf("54737491004").build();
+        cacheManager.getCache(CacheConfig.USER_KEYS).put("email:fulano@email.com", 1l);
+        cacheManager.getCache(CacheConfig.USERS).put(1l, changed);
+        UserService service = createService( cacheManager, createKeyFilter() );
+        Mockito.when( this.userRepository.findByEmailNormalized("fulano@email.com") ).thenReturn( Optional.empty() );
+        // Execução
+        Optional<User> found = service.getUserByEmail("Fulano@Email.com");
+        // Verificações
+        assertThat( found ).isEmpty();
+        assertThat( cacheManager.getCache(CacheConfig.USER_KEYS).get("email:fulano@email.com") ).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve salvar o cpf apenas com dígitos e verificar o email sem diferenciar maiúsculas.")
+    public void saveNormalizesKeys() {
+        // Cenário
+        User user = User.builder().fullname("Fulano").email("Fulano@Email.com").cpf("547.374.910-04").build();
+        Mockito.when( this.userRepository.findByEmailOrCpf("fulano@email.com", "54737491004") ).thenReturn( Arrays.asList() );
+        Mockito.when( this.userRepository.saveAndFlush(user) ).thenReturn( user );
+        // Execução
+        this.userService.save(user);
+        // Verificações
+        assertThat( user.getCpf() ).isEqualTo("54737491004");
+        Mockito.verify( this.userRepository ).findByEmailOrCpf("fulano@email.com", "54737491004");
+    }
+
+    private static <T> List<T> runConcurrently(int threads, CountDownLatch arrived, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for ( int i = 0; i < threads; i++ ) {
+                futures.add( executor.submit( () -> {
+                    arrived.countDown();
+                    return task.call();
+                }) );
+            }
+            List<T> results = new ArrayList<>();
+            for ( Future<T> future : futures ) {
+                results.add( future.get(10, TimeUnit.SECONDS) );
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UserService createService(CacheManager cacheManager, UserKeyFilter userKeyFilter) {
+        return new UserServiceImpl(userRepository, userTrigramRepository, cacheManager, userKeyFilter);
+    }
+
+    private static UserKeyFilter createKeyFilter() {
+        return new UserKeyFilter(1000, 0.01, new SimpleMeterRegistry());
+    }
+
+}
@@ -0,0 +1,39 @@
+package br.com.josehamilton.crud.api.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BloomFilterTest {
+
+    @Test
+    @DisplayName("Deve encontrar todos os textos adicionados.")
+    public void noFalseNegativesTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for ( int i = 0; i < 10_000; i++ ) {
+            filter.put("email:usuario" + i + "@email.com");
+        }
+        for ( int i = 0; i < 10_000; i++ ) {
+            assertThat( filter.mightContain("email:usuario" + i + "@email.com") ).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter a taxa de falso positivo próxima da configurada.")
+    public void falsePositiveRateTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for ( int i = 0; i < 10_000; i++ ) {
+            filter.put("cpf:" + i);
+        }
+        int falsePositives = 0;
+        for ( int i = 10_000; i < 110_000; i++ ) {
+            if ( filter.mightContain("cpf:" + i) ) {
+                falsePositives++;
+            }
+        }
+        assertThat( falsePositives / 100_000d ).isLessThan(0.02);
+        assertThat( filter.expectedFalsePositiveRate() ).isBetween(0.005, 0.015);
+    }
+
+}